@@ -0,0 +1,10 @@
+//Receives the garbage that an engine sends to its opponents when it clears lines in a versus match.
+public interface AttackListener {
+
+	/**
+	 * Called on the thread that ticks the engine, once the attack has cancelled as much of the garbage waiting for the engine's own board as it can.
+	 * lines: The number of lines of garbage that are left to send, always at least one.
+	 */
+	void onAttack(int lines);
+
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+//Responsible for sending the garbage from every board in a versus match to its opponents.
+//Any number of matches can be played at once, with their boards ticked on any threads, and nothing is ever locked. The members of each match are kept
+//in an array that is replaced as a whole when a board joins or leaves, so sending an attack only reads the current array and offers the attack to the
+//target's GarbageQueue, which is lock-free itself.
+//Each attack goes to one opponent that is still playing, and each board takes turns between its opponents, so in a match of two every attack
+//goes to the other board.
+public class AttackRouter {
+
+	//The members of a match that has been emptied and removed. Nothing can join it any more.
+	private static final Member[] CLOSED = new Member[0];
+
+	//The matches that have at least one member, by id
+	private final ConcurrentHashMap<Long, Match> matches;
+
+	//The total number of lines of garbage sent
+	private final LongAdder sentLines;
+
+	//The total number of lines of garbage that reached an opponent's queue
+	private final LongAdder deliveredLines;
+
+	//The total number of lines of garbage that were thrown away, because no opponent was playing or the opponent's queue was full
+	private final LongAdder droppedLines;
+
+	//Creates a new router with no matches
+	public AttackRouter() {
+		this.matches = new ConcurrentHashMap<Long, Match>();
+		this.sentLines = new LongAdder();
+		this.deliveredLines = new LongAdder();
+		this.droppedLines = new LongAdder();
+	}
+
+	//Adds a board to a match, creating the match if it has no members yet. Can be called from any thread.
+	//matchId: The id of the match
+	//garbage: The queue that garbage sent to the board is added to
+	//Returns the member, which should be set as the attack listener of the board's engine. It isn't sent any garbage until it is set as playing.
+	public Member join(long matchId, GarbageQueue garbage) {
+		while(true) {
+			Match match = matches.get(matchId);
+			if(match == null) {
+				Match created = new Match(matchId);
+				match = matches.putIfAbsent(matchId, created);
+				if(match == null) {
+					match = created;
+				}
+			}
+
+			//If the match was emptied while we were joining it, wait for it to be removed and start a new one.
+			Member member = new Member(match, garbage);
+			if(match.add(member)) {
+				return member;
+			}
+		}
+	}
+
+	//Gets the number of matches that have at least one member
+	public int getMatchCount() {
+		return matches.size();
+	}
+
+	//Gets the total number of lines of garbage sent
+	public long getSentLines() {
+		return sentLines.sum();
+	}
+
+	//Gets the total number of lines of garbage that reached an opponent's queue
+	public long getDeliveredLines() {
+		return deliveredLines.sum();
+	}
+
+	//Gets the total number of lines of garbage that were thrown away, because no opponent was playing or the opponent's queue was full
+	public long getDroppedLines() {
+		return droppedLines.sum();
+	}
+
+	//One board in a match. The attacks it sends are routed to the other members of its match.
+	public final class Member implements AttackListener {
+
+		//The match the board is in
+		private final Match match;
+
+		//The queue that garbage sent to the board is added to
+		private final GarbageQueue garbage;
+
+		//Whether the board is in a game, so it can be sent garbage
+		private volatile boolean isPlaying;
+
+		//The position in the match's members of the next opponent to try. Only used by the thread that ticks the board.
+		private int nextTarget;
+
+		private Member(Match match, GarbageQueue garbage) {
+			this.match = match;
+			this.garbage = garbage;
+		}
+
+		@Override
+		public void onAttack(int lines) {
+			match.send(this, lines);
+		}
+
+		//Sets whether the board is in a game. Boards that aren't playing, such as ones that have topped out, are skipped when sending garbage.
+		public void setPlaying(boolean isPlaying) {
+			this.isPlaying = isPlaying;
+		}
+
+		//Checks to see whether the board is in a game
+		public boolean isPlaying() {
+			return isPlaying;
+		}
+
+		//Gets the id of the match the board is in
+		public long getMatchId() {
+			return match.id;
+		}
+
+		//Removes the board from its match. Can be called from any thread.
+		public void leave() {
+			match.remove(this);
+		}
+
+	}
+
+	//A match, which is the boards that send garbage to each other
+	private final class Match {
+
+		//The id of the match
+		private final long id;
+
+		//The members of the match, replaced as a whole whenever one joins or leaves
+		private final AtomicReference<Member[]> members;
+
+		private Match(long id) {
+			this.id = id;
+			this.members = new AtomicReference<Member[]>(new Member[0]);
+		}
+
+		//Adds a member, and returns false if the match has already been emptied and removed
+		private boolean add(Member member) {
+			while(true) {
+				Member[] current = members.get();
+				if(current == CLOSED) {
+					return false;
+				}
+				Member[] updated = new Member[current.length + 1];
+				System.arraycopy(current, 0, updated, 0, current.length);
+				updated[current.length] = member;
+				if(members.compareAndSet(current, updated)) {
+					return true;
+				}
+			}
+		}
+
+		//Removes a member, and removes the match from the router when its last member leaves
+		private void remove(Member member) {
+			while(true) {
+				Member[] current = members.get();
+				int index = -1;
+				for(int i = 0; i < current.length; i++) {
+					if(current[i] == member) {
+						index = i;
+						break;
+					}
+				}
+				if(index < 0) {
+					return;
+				}
+
+				Member[] updated = CLOSED;
+				if(current.length > 1) {
+					updated = new Member[current.length - 1];
+					System.arraycopy(current, 0, updated, 0, index);
+					System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+				}
+				if(members.compareAndSet(current, updated)) {
+					if(updated == CLOSED) {
+						matches.remove(id, this);
+					}
+					return;
+				}
+			}
+		}
+
+		//Sends an attack to the next opponent of the sender that is playing
+		private void send(Member sender, int lines) {
+			sentLines.add(lines);
+			Member[] current = members.get();
+			for(int tried = 0; tried < current.length; tried++) {
+				int index = sender.nextTarget % current.length;
+				sender.nextTarget = index + 1;
+				Member target = current[index];
+				if(target != sender && target.isPlaying) {
+					if(target.garbage.offer(lines)) {
+						deliveredLines.add(lines);
+					} else {
+						droppedLines.add(lines);
+					}
+					return;
+				}
+			}
+			droppedLines.add(lines);
+		}
+
+	}
+
+}
\ No newline at end of file
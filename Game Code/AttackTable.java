@@ -0,0 +1,53 @@
+//Decides how many lines of garbage a piece sends to the opponents in a versus match when it clears lines.
+//An attack is the lines sent for the number of lines the piece cleared, plus a bonus for the combo: the number of pieces in a row before it that also cleared lines.
+//Tables are immutable, so one table can be shared by every engine in every match.
+public final class AttackTable {
+
+	//The table used in versus matches unless another one is given: nothing for a single, 1 line for a double, 2 for a triple and 4 for a tetris,
+	//and a combo bonus that grows to 5 lines after twelve pieces in a row have cleared lines
+	public static final AttackTable STANDARD = new AttackTable(new int[] {0, 0, 1, 2, 4}, new int[] {0, 0, 1, 1, 1, 2, 2, 3, 3, 4, 4, 4, 5});
+
+	//The lines sent, indexed by the number of lines cleared
+	private final int[] lineAttacks;
+
+	//The bonus lines sent, indexed by the combo
+	private final int[] comboAttacks;
+
+	/**
+	 * Creates a new attack table.
+	 * lineAttacks: The lines sent, indexed by the number of lines cleared. Clears larger than the table send the last entry.
+	 * comboAttacks: The bonus lines sent, indexed by the combo. Combos longer than the table send the last entry.
+	 */
+	public AttackTable(int[] lineAttacks, int[] comboAttacks) {
+		if(lineAttacks.length == 0 || comboAttacks.length == 0) {
+			throw new IllegalArgumentException("the tables must not be empty");
+		}
+		for(int attack : lineAttacks) {
+			if(attack < 0) {
+				throw new IllegalArgumentException("attacks must not be negative");
+			}
+		}
+		for(int attack : comboAttacks) {
+			if(attack < 0) {
+				throw new IllegalArgumentException("attacks must not be negative");
+			}
+		}
+		this.lineAttacks = lineAttacks.clone();
+		this.comboAttacks = comboAttacks.clone();
+	}
+
+	//Gets the number of lines of garbage sent by a piece
+	//lines: The number of lines the piece cleared
+	//combo: The number of pieces in a row before it that also cleared lines
+	public int getAttack(int lines, int combo) {
+		if(lines <= 0) {
+			return 0;
+		}
+		int attack = lineAttacks[Math.min(lines, lineAttacks.length - 1)];
+		if(combo > 0) {
+			attack += comboAttacks[Math.min(combo, comboAttacks.length - 1)];
+		}
+		return attack;
+	}
+
+}
\ No newline at end of file
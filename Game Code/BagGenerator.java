@@ -0,0 +1,41 @@
+import java.util.SplittableRandom;
+
+//Picks pieces from a shuffled bag that holds one of each type, refilling and reshuffling the bag once it is empty.
+//Every type appears exactly once in every group of seven pieces, so the player never waits more than twelve pieces for any type.
+public class BagGenerator implements PieceGenerator {
+
+	//The random number generator
+	private final SplittableRandom random;
+
+	//The ordinals of the pieces in the bag, in the order they will be picked
+	private final byte[] bag;
+
+	//The index of the next piece to pick from the bag
+	private int index;
+
+	//Creates a new generator
+	public BagGenerator(SplittableRandom random) {
+		this.random = random;
+		this.bag = new byte[TileType.values().length];
+		for(int i = 0; i < bag.length; i++) {
+			bag[i] = (byte)i;
+		}
+		this.index = bag.length;
+	}
+
+	@Override
+	public int next() {
+		if(index == bag.length) {
+			//Refill the bag with a Fisher-Yates shuffle of the previous bag.
+			for(int i = bag.length - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				byte swap = bag[i];
+				bag[i] = bag[j];
+				bag[j] = swap;
+			}
+			this.index = 0;
+		}
+		return bag[index++];
+	}
+
+}
\ No newline at end of file
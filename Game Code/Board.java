@@ -0,0 +1,418 @@
+import java.util.Arrays;
+
+//Responsible for storing the tiles of the game board and answering collision queries.
+//Every row is kept as a bitmask (bit x set means column x is occupied) so that collision, placement and full row detection only need a few mask operations per row.
+//The size of the board comes from its BoardConfig. Rows are longs, so boards up to 64 columns wide are just as fast as narrow ones.
+//The type of each tile is kept separately in a compact color plane, which is only needed for rendering.
+//The highest occupied row of each column (the skyline) is kept up to date as pieces are added and lines are cleared, so the row a piece
+//lands on can usually be found from the skyline and the piece's bottom profile without testing every row it falls through.
+public class Board {
+
+	//The piece types, indexed by the values stored in the color plane (minus one).
+	private static final TileType[] TYPES = TileType.values();
+
+	//The size of the board.
+	private BoardConfig config;
+
+	//The number of columns on the board.
+	private int colCount;
+
+	//The total number of rows that the board contains, visible and hidden.
+	private int rowCount;
+
+	//The mask of a row where every column is occupied.
+	private long fullRow;
+
+	//The occupancy mask of each row.
+	private long[] rows;
+
+	//The type of each tile, stored as the ordinal of the type plus one (zero means empty). Indexed by row * colCount + column.
+	private byte[] colors;
+
+	//The highest occupied row of each column, or rowCount if the column is empty.
+	private int[] tops;
+
+	//Counts the changes made to the board, so that anything drawn from it knows when it has to be drawn again.
+	private int version;
+
+	//Creates a new empty board of the standard size.
+	public Board() {
+		this(BoardConfig.STANDARD);
+	}
+
+	//Creates a new empty board of the given size.
+	public Board(BoardConfig config) {
+		setConfig(config);
+	}
+
+	//Sets the size of the board and makes new, empty storage for it.
+	private void setConfig(BoardConfig config) {
+		this.config = config;
+		this.colCount = config.getColCount();
+		this.rowCount = config.getRowCount();
+		this.fullRow = config.getFullRow();
+		this.rows = new long[rowCount];
+		this.colors = new byte[rowCount * colCount];
+		this.tops = new int[colCount];
+		updateTops();
+	}
+
+	//Resets the board and clears away any tiles.
+	public void clear() {
+		for(int i = 0; i < rowCount; i++) {
+			rows[i] = 0;
+		}
+		for(int i = 0; i < colors.length; i++) {
+			colors[i] = 0;
+		}
+		for(int i = 0; i < colCount; i++) {
+			tops[i] = rowCount;
+		}
+		version++;
+	}
+
+	//Makes this board an exact copy of another board, including its version. If the other board is a different size, this board takes its size.
+	public void copyFrom(Board other) {
+		if(!config.equals(other.config)) {
+			setConfig(other.config);
+		}
+		System.arraycopy(other.rows, 0, rows, 0, rowCount);
+		System.arraycopy(other.colors, 0, colors, 0, colors.length);
+		System.arraycopy(other.tops, 0, tops, 0, colCount);
+		this.version = other.version;
+	}
+
+	//Determines whether a piece can be placed at specific coordinates.
+	public boolean isValidAndEmpty(TileType type, int x, int y, int rotation) {
+		TileShape shape = type.getShape(rotation);
+		int dimension = type.getDimension();
+
+		//Ensure the piece is in a valid column.
+		if(x < -shape.getLeftInset() || x + dimension - shape.getRightInset() >= colCount) {
+			return false;
+		}
+
+		//Ensure the piece is in a valid row.
+		if(y < -shape.getTopInset() || y + dimension - shape.getBottomInset() >= rowCount) {
+			return false;
+		}
+
+		//Test each row of the piece against the matching board row in one operation.
+		//Only the rows that contain tiles are tested, the bounds checks above guarantee they are all on the board.
+		for(int row = shape.getTopInset(); row <= dimension - shape.getBottomInset(); row++) {
+			if((rows[y + row] & shift(shape.getRowMask(row), x)) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	//Gets the lowest row a piece can fall to from the given row, or one row above it if the piece doesn't fit where it is.
+	//When the piece is above the skyline in every column it covers, nothing can stop it before it reaches the skyline, so the row is
+	//found from the column tops and the piece's bottom profile in one step per column. Otherwise (for example when the piece has been
+	//tucked under an overhang) the piece is moved down one row at a time.
+	public int getDropRow(TileType type, int x, int y, int rotation) {
+		TileShape shape = type.getShape(rotation);
+		int dimension = type.getDimension();
+		int left = shape.getLeftInset();
+		int right = dimension - shape.getRightInset();
+		if(x >= -left && x + right < colCount && y >= -shape.getTopInset()) {
+			int landing = rowCount;
+			for(int col = left; col <= right; col++) {
+				int bottom = shape.getColumnBottom(col);
+				if(bottom < 0) {
+					continue;
+				}
+				int top = tops[x + col];
+				if(y + bottom >= top) {
+					landing = -1;
+					break;
+				}
+				landing = Math.min(landing, top - 1 - bottom);
+			}
+			if(landing >= 0) {
+				return landing;
+			}
+		}
+
+		int lowest = y;
+
+		//If no collision is detected, try the next row.
+		while(lowest < rowCount && isValidAndEmpty(type, x, lowest, rotation)) {
+			lowest++;
+		}
+
+		//The piece lands one row higher than the one the collision took place at.
+		return lowest - 1;
+	}
+
+	//Gets the column a piece has to move to when it is rotated, so that the new rotation doesn't clip out of the sides of the board.
+	//This is the kick of RotationSystem.LEGACY.
+	//x: The column of the piece before it is rotated
+	//rotation: The new rotation
+	public int kickColumn(TileType type, int x, int rotation) {
+		TileShape shape = type.getShape(rotation);
+		int left = shape.getLeftInset();
+		int right = shape.getRightInset();
+		if(x < -left) {
+			return x - (x - left);
+		} else if(x + type.getDimension() - right >= colCount) {
+			return x - ((x + type.getDimension() - right) - colCount + 1);
+		}
+		return x;
+	}
+
+	//Gets the row a piece has to move to when it is rotated, so that the new rotation doesn't clip out of the top or bottom of the board.
+	//This is the kick of RotationSystem.LEGACY.
+	//y: The row of the piece before it is rotated
+	//rotation: The new rotation
+	public int kickRow(TileType type, int y, int rotation) {
+		TileShape shape = type.getShape(rotation);
+		int top = shape.getTopInset();
+		int bottom = shape.getBottomInset();
+		if(y < -top) {
+			return y - (y - top);
+		} else if(y + type.getDimension() - bottom >= rowCount) {
+			return y - ((y + type.getDimension() - bottom) - rowCount + 1);
+		}
+		return y;
+	}
+
+	//Adds a piece to the game board.
+	public void addPiece(TileType type, int x, int y, int rotation) {
+		TileShape shape = type.getShape(rotation);
+		byte color = (byte)(type.ordinal() + 1);
+		for(int row = shape.getTopInset(); row <= type.getDimension() - shape.getBottomInset(); row++) {
+			//Mark the row as occupied, then record the type of every new tile for rendering.
+			long shifted = shift(shape.getRowMask(row), x);
+			int line = y + row;
+			rows[line] |= shifted;
+			while(shifted != 0) {
+				int col = Long.numberOfTrailingZeros(shifted);
+				colors[line * colCount + col] = color;
+				tops[col] = Math.min(tops[col], line);
+				shifted &= shifted - 1;
+			}
+		}
+		version++;
+	}
+
+	//Checks the board to see if any lines have been cleared and removes them from the game.
+	public int checkLines() {
+		return checkLines(null);
+	}
+
+	//Checks the board to see if any lines have been cleared and removes them from the game.
+	//clearedRows: Filled with the index of every row that was cleared, from top to bottom, if it isn't null and has room for them.
+	//Returns the number of rows that were cleared.
+	public int checkLines(int[] clearedRows) {
+		//Find every full row in a single scan over the row masks.
+		int completedLines = 0;
+		for(int row = 0; row < rowCount; row++) {
+			if(rows[row] == fullRow) {
+				if(clearedRows != null && completedLines < clearedRows.length) {
+					clearedRows[completedLines] = row;
+				}
+				completedLines++;
+			}
+		}
+		if(completedLines == 0) {
+			return 0;
+		}
+
+		//Move every row that isn't full down past the full rows below it, working up from the bottom so each row is moved at most once.
+		int write = rowCount - 1;
+		for(int read = rowCount - 1; read >= 0; read--) {
+			if(rows[read] == fullRow) {
+				continue;
+			}
+			if(read != write) {
+				rows[write] = rows[read];
+				System.arraycopy(colors, read * colCount, colors, write * colCount, colCount);
+			}
+			write--;
+		}
+
+		//The rows left at the top are filled with copies of the top row, which is what shifting the board down one row per cleared line used to do.
+		for(int row = 1; row <= write; row++) {
+			rows[row] = rows[0];
+			System.arraycopy(colors, 0, colors, row * colCount, colCount);
+		}
+
+		updateTops();
+		version++;
+		return completedLines;
+	}
+
+	/**
+	 * Pushes every row up and fills the bottom rows with garbage: rows that are full apart from one hole, in the same column in every row.
+	 * The rows are moved with one bulk copy of the row masks and one of the color plane, so the cost doesn't depend on how many tiles are on the board.
+	 * count: The number of garbage rows.
+	 * hole: The column left empty in every garbage row.
+	 * type: The type the garbage tiles are drawn as.
+	 * Returns true if any tiles were pushed off the top of the board.
+	 */
+	public boolean insertGarbage(int count, int hole, TileType type) {
+		if(hole < 0 || hole >= colCount) {
+			throw new IllegalArgumentException("hole must be a column on the board");
+		}
+		if(count <= 0) {
+			return false;
+		}
+		count = Math.min(count, rowCount);
+
+		//Any tile in the rows that are about to be pushed out is lost.
+		boolean overflow = false;
+		for(int row = 0; row < count; row++) {
+			if(rows[row] != 0) {
+				overflow = true;
+				break;
+			}
+		}
+
+		int first = rowCount - count;
+		System.arraycopy(rows, count, rows, 0, first);
+		System.arraycopy(colors, count * colCount, colors, 0, first * colCount);
+
+		long mask = fullRow & ~(1L << hole);
+		byte color = (byte)(type.ordinal() + 1);
+		Arrays.fill(rows, first, rowCount, mask);
+		Arrays.fill(colors, first * colCount, rowCount * colCount, color);
+		for(int row = first; row < rowCount; row++) {
+			colors[row * colCount + hole] = 0;
+		}
+
+		//Every column moves up by the number of garbage rows, and the columns that were empty now start at the garbage, except for the hole.
+		if(overflow) {
+			updateTops();
+		} else {
+			for(int col = 0; col < colCount; col++) {
+				if(tops[col] < rowCount) {
+					tops[col] -= count;
+				} else if(col != hole) {
+					tops[col] = first;
+				}
+			}
+		}
+		version++;
+		return overflow;
+	}
+
+	//Replaces a whole row, filling the columns set in the mask with tiles of the given type and emptying the rest.
+	//This is used to set up boards directly, without placing pieces.
+	public void setRow(int y, long mask, TileType type) {
+		mask &= fullRow;
+		rows[y] = mask;
+		byte color = (byte)(type.ordinal() + 1);
+		for(int col = 0; col < colCount; col++) {
+			colors[y * colCount + col] = ((mask & (1L << col)) != 0) ? color : 0;
+		}
+		updateTops();
+		version++;
+	}
+
+	//Checks to see if the tile is already occupied.
+	public boolean isOccupied(int x, int y) {
+		return (rows[y] & (1L << x)) != 0;
+	}
+
+	//Gets the tile by its column and row, or null if the tile is empty.
+	public TileType getTile(int x, int y) {
+		int color = colors[y * colCount + x];
+		return (color == 0) ? null : TYPES[color - 1];
+	}
+
+	//Gets the number of changes that have been made to the board.
+	public int getVersion() {
+		return version;
+	}
+
+	//Gets the occupancy mask of a row.
+	public long getRow(int y) {
+		return rows[y];
+	}
+
+	//Gets the size of the board.
+	public BoardConfig getConfig() {
+		return config;
+	}
+
+	//Gets the number of columns on the board.
+	public int getColCount() {
+		return colCount;
+	}
+
+	//Gets the total number of rows that the board contains, visible and hidden.
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	//Gets the number of rows that are hidden from view above the board.
+	public int getHiddenRowCount() {
+		return config.getHiddenRowCount();
+	}
+
+	//Gets the number of visible rows on the board.
+	public int getVisibleRowCount() {
+		return config.getVisibleRowCount();
+	}
+
+	//Gets the mask of a row where every column is occupied.
+	public long getFullRow() {
+		return fullRow;
+	}
+
+	//Gets the column a piece spawns in.
+	public int getSpawnColumn(TileType type) {
+		return config.getSpawnColumn(type);
+	}
+
+	//Gets the highest occupied row of a column, or rowCount if the column is empty.
+	public int getColumnTop(int x) {
+		return tops[x];
+	}
+
+	//Gets the height of a column, which is the number of rows from the bottom of the board up to and including its highest occupied row.
+	public int getColumnHeight(int x) {
+		return rowCount - tops[x];
+	}
+
+	//Gets a 64-bit hash of which tiles are occupied. Boards with the same tiles always have the same hash, whatever types the tiles are.
+	//Each row mask is folded into the hash in turn, and the result is mixed so every bit of the hash depends on every row.
+	public long getHash() {
+		long hash = 0;
+		for(int row = 0; row < rowCount; row++) {
+			hash = (hash ^ rows[row]) * 0x9E3779B97F4A7C15L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	//Finds the highest occupied row of every column again, scanning the row masks from the top down.
+	private void updateTops() {
+		long seen = 0;
+		for(int row = 0; row < rowCount && seen != fullRow; row++) {
+			long found = rows[row] & ~seen;
+			while(found != 0) {
+				tops[Long.numberOfTrailingZeros(found)] = row;
+				found &= found - 1;
+			}
+			seen |= rows[row];
+		}
+		long empty = ~seen & fullRow;
+		while(empty != 0) {
+			tops[Long.numberOfTrailingZeros(empty)] = rowCount;
+			empty &= empty - 1;
+		}
+	}
+
+	//Moves a piece's row mask to the given column. The column may be negative when the piece has empty columns on its left.
+	private static long shift(int mask, int x) {
+		return (x >= 0) ? (long)mask << x : mask >>> -x;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+//Describes the size of a board: its number of columns and its number of visible rows. Two rows above the visible ones are always kept
+//hidden, so pieces can spawn partly above the board.
+//Every row of the board is kept as a single long bitmask, so a board can be up to 64 columns wide. Everything that depends on the size of
+//the board (the engine, the search and the panels) reads it from the board's config instead of from constants, so larger boards can be
+//played without recompiling.
+public final class BoardConfig {
+
+	//The number of rows that are hidden from view above the board
+	public static final int HIDDEN_ROW_COUNT = 2;
+
+	//The smallest number of columns, which is the width of the widest piece
+	public static final int MIN_COL_COUNT = 4;
+
+	//The largest number of columns, which is the number of bits in a row mask
+	public static final int MAX_COL_COUNT = Long.SIZE;
+
+	//The smallest number of visible rows
+	public static final int MIN_VISIBLE_ROW_COUNT = 4;
+
+	//The largest number of visible rows
+	public static final int MAX_VISIBLE_ROW_COUNT = 1024;
+
+	//The size of the board the game is normally played on
+	public static final BoardConfig STANDARD = new BoardConfig(10, 20);
+
+	//The number of columns
+	private final int colCount;
+
+	//The number of visible rows
+	private final int visibleRowCount;
+
+	//The mask of a row where every column is occupied
+	private final long fullRow;
+
+	//Creates a new board size
+	//colCount: The number of columns, from MIN_COL_COUNT to MAX_COL_COUNT
+	//visibleRowCount: The number of visible rows, from MIN_VISIBLE_ROW_COUNT to MAX_VISIBLE_ROW_COUNT
+	public BoardConfig(int colCount, int visibleRowCount) {
+		if(colCount < MIN_COL_COUNT || colCount > MAX_COL_COUNT) {
+			throw new IllegalArgumentException("colCount must be between " + MIN_COL_COUNT + " and " + MAX_COL_COUNT);
+		}
+		if(visibleRowCount < MIN_VISIBLE_ROW_COUNT || visibleRowCount > MAX_VISIBLE_ROW_COUNT) {
+			throw new IllegalArgumentException("visibleRowCount must be between " + MIN_VISIBLE_ROW_COUNT + " and " + MAX_VISIBLE_ROW_COUNT);
+		}
+		this.colCount = colCount;
+		this.visibleRowCount = visibleRowCount;
+		this.fullRow = (colCount == Long.SIZE) ? -1L : (1L << colCount) - 1;
+	}
+
+	//Reads a board size written as columns x rows, such as 10x20
+	public static BoardConfig parse(String size) {
+		int separator = size.toLowerCase().indexOf('x');
+		if(separator < 0) {
+			throw new IllegalArgumentException("board size must be written as columns x rows, such as 10x20");
+		}
+		return new BoardConfig(Integer.parseInt(size.substring(0, separator).trim()), Integer.parseInt(size.substring(separator + 1).trim()));
+	}
+
+	//Gets the number of columns
+	public int getColCount() {
+		return colCount;
+	}
+
+	//Gets the number of visible rows
+	public int getVisibleRowCount() {
+		return visibleRowCount;
+	}
+
+	//Gets the number of rows that are hidden from view above the board
+	public int getHiddenRowCount() {
+		return HIDDEN_ROW_COUNT;
+	}
+
+	//Gets the total number of rows, visible and hidden
+	public int getRowCount() {
+		return visibleRowCount + HIDDEN_ROW_COUNT;
+	}
+
+	//Gets the mask of a row where every column is occupied
+	public long getFullRow() {
+		return fullRow;
+	}
+
+	//Gets the column a piece spawns in, which puts it in the middle of the board
+	public int getSpawnColumn(TileType type) {
+		return (colCount >> 1) - (type.getDimension() >> 1);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if(!(other instanceof BoardConfig)) {
+			return false;
+		}
+		BoardConfig config = (BoardConfig)other;
+		return colCount == config.colCount && visibleRowCount == config.visibleRowCount;
+	}
+
+	@Override
+	public int hashCode() {
+		return colCount * 31 + visibleRowCount;
+	}
+
+	@Override
+	public String toString() {
+		return colCount + "x" + visibleRowCount;
+	}
+
+}
\ No newline at end of file
@@ -1,7 +1,11 @@
 import java.awt.Color;
+import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 
 //Responsible for displaying the game grid and handling things related to the game board
@@ -14,271 +18,435 @@ public class BoardPanel extends JPanel {
 	//The width of the border around the game board.
 	private static final int BORDER_WIDTH = 5;
 
+	//The number of pixels that a tile takes up, unless another size is asked for.
+	public static final int DEFAULT_TILE_SIZE = 24;
+	
+	//The smallest number of pixels that a tile can take up.
+	public static final int MIN_TILE_SIZE = 6;
+	
+	//The distance of the title and the prompt above and below the center of the board.
+	private static final int TITLE_OFFSET = 90;
+	private static final int PROMPT_OFFSET = 60;
+	
+	//The larger font to display.
+	private static final Font LARGE_FONT = new Font("Times New Roman", Font.BOLD, 18);
+
+	//The smaller font to display.
+	private static final Font SMALL_FONT = new Font("Times New Roman", Font.BOLD, 12);
+	
+	//The font of the debug overlay.
+	private static final Font OVERLAY_FONT = new Font("Monospaced", Font.PLAIN, 11);
+	
+	//The color behind the debug overlay, dark and partly see-through so the board still shows.
+	private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+	
+	//The position and size of the debug overlay, inside the border.
+	private static final int OVERLAY_X = 4;
+	private static final int OVERLAY_Y = 4;
+	private static final int OVERLAY_WIDTH = 224;
+	private static final int OVERLAY_LINE_HEIGHT = 13;
+	private static final int OVERLAY_LINE_COUNT = 10;
+	private static final int OVERLAY_HEIGHT = OVERLAY_LINE_COUNT * OVERLAY_LINE_HEIGHT + 6;
+	
+	//The x coordinates of the labels and of the p50, p99 and max columns of the debug overlay.
+	private static final int OVERLAY_LABEL_X = OVERLAY_X + 6;
+	private static final int[] OVERLAY_COLUMN_X = {OVERLAY_X + 84, OVERLAY_X + 128, OVERLAY_X + 172};
+	
+
+	//The snapshot that the next paint draws, given by the GamePanel at the start of every paint, or null before the first one.
+	private FrameSnapshot paintedFrame;
+	
 	//The number of columns on the board.
-	public static final int COL_COUNT = 10;
-		
+	private final int colCount;
+	
 	//The number of visible rows on the board.
-	private static final int VISIBLE_ROW_COUNT = 20;
+	private final int visibleRowCount;
 	
 	//The number of rows that are hidden from view.
-	private static final int HIDDEN_ROW_COUNT = 2;
+	private final int hiddenRowCount;
 	
 	//The total number of rows that the board contains.
-	public static final int ROW_COUNT = VISIBLE_ROW_COUNT + HIDDEN_ROW_COUNT;
+	private final int rowCount;
 	
 	//The number of pixels that a tile takes up.
-	public static final int TILE_SIZE = 24;
-	
-	//The width of the shading on the tiles.
-	public static final int SHADE_WIDTH = 4;
+	private final int tileSize;
 	
 	//The central x and y coordinate on the game board.
-	private static final int CENTER_X = COL_COUNT * TILE_SIZE / 2;
-	private static final int CENTER_Y = VISIBLE_ROW_COUNT * TILE_SIZE / 2;
-		
+	private final int centerX, centerY;
+	
 	//The total width & height of the panel.
-	public static final int PANEL_WIDTH = COL_COUNT * TILE_SIZE + BORDER_WIDTH * 2;
-	public static final int PANEL_HEIGHT = VISIBLE_ROW_COUNT * TILE_SIZE + BORDER_WIDTH * 2;
+	private final int panelWidth, panelHeight;
 	
-	//The larger font to display.
-	private static final Font LARGE_FONT = new Font("Times New Roman", Font.BOLD, 18);
-
-	//The smaller font to display.
-	private static final Font SMALL_FONT = new Font("Times New Roman", Font.BOLD, 12);
+	//The pre-rendered tiles.
+	private TileSprites sprites;
 	
-
-	private Tetris tetris;
+	//The pre-rendered messages shown over the board, so they don't have to be measured and laid out every frame.
+	private final TextImage pausedText, titleText, gameOverText, playText, playAgainText;
+	
+	//The locked tiles and the grid, drawn once and reused until the board changes.
+	private BufferedImage stackLayer;
+	
+	//The grid lines on their own, used to draw the grid back over the falling piece and the ghost.
+	private BufferedImage gridLayer;
+	
+	//The version of the board that the stack layer was drawn from.
+	private int layerVersion;
+	
+	//The state of the game when the board was last repainted, used to find out which parts of the panel need to be repainted next.
+	private int paintedVersion;
+	private int paintedState = -1;
+	private int paintedPieceX, paintedPieceY, paintedPieceWidth, paintedPieceHeight;
+	private int paintedGhostY;
 	
-	//The tiles that make up the board.
-	private TileType[][] tiles;
+	//The metrics shown in the debug overlay and that record how long painting takes, or null if metrics are off.
+	private GameMetrics metrics;
+	
+	//Whether the debug overlay is shown. Can be changed from any thread.
+	private volatile boolean showOverlay;
+	
+	//The pre-rendered labels and digits of the debug overlay, created along with the metrics.
+	private TextImage[] overlayLabels;
+	private DigitAtlas overlayDigits;
+	
+	//The send time of the last action applied before the last drawn snapshot was taken.
+	private long drawnInputTime;
 		
-	//Creates a new GameBoard instance.
-	public BoardPanel(Tetris tetris) {
-		this.tetris = tetris;
-		this.tiles = new TileType[ROW_COUNT][COL_COUNT];
+	//Creates a new GameBoard instance for a board of the standard size.
+	public BoardPanel() {
+		this(BoardConfig.STANDARD, DEFAULT_TILE_SIZE);
+	}
+	
+	/**
+	 * Creates a new GameBoard instance.
+	 * config: The size of the board, which must match the size of the engine's board.
+	 * tileSize: The number of pixels that a tile takes up.
+	 */
+	public BoardPanel(BoardConfig config, int tileSize) {
+		if(tileSize < MIN_TILE_SIZE) {
+			throw new IllegalArgumentException("tiles must be at least " + MIN_TILE_SIZE + " pixels");
+		}
+		this.colCount = config.getColCount();
+		this.visibleRowCount = config.getVisibleRowCount();
+		this.hiddenRowCount = config.getHiddenRowCount();
+		this.rowCount = config.getRowCount();
+		this.tileSize = tileSize;
+		this.centerX = colCount * tileSize / 2;
+		this.centerY = visibleRowCount * tileSize / 2;
+		this.panelWidth = colCount * tileSize + BORDER_WIDTH * 2;
+		this.panelHeight = visibleRowCount * tileSize + BORDER_WIDTH * 2;
+		this.sprites = new TileSprites(tileSize);
+		this.pausedText = new TextImage("PAUSED", LARGE_FONT, Color.BLACK);
+		this.titleText = new TextImage("TETRIS", LARGE_FONT, Color.BLACK);
+		this.gameOverText = new TextImage("GAME OVER", LARGE_FONT, Color.BLACK);
+		this.playText = new TextImage("Press Enter to Play", SMALL_FONT, Color.BLACK);
+		this.playAgainText = new TextImage("Press Enter to PlayAgain", SMALL_FONT, Color.BLACK);
 		
-		setPreferredSize(new Dimension(PANEL_WIDTH, PANEL_HEIGHT));
+		setPreferredSize(new Dimension(panelWidth, panelHeight));
 		setBackground(Color.GRAY);
 	}
 	
-	//Resets the board and clears away any tiles.
-	public void clear() {
-		//Works by looping through every tile index and set its value to null to clear the board to reset.
-		for(int i = 0; i < ROW_COUNT; i++) {
-			for(int j = 0; j < COL_COUNT; j++) {
-				tiles[i][j] = null;
-			}
-		}
+	//Gets the total width of the panel.
+	public int getPanelWidth() {
+		return panelWidth;
 	}
 	
-	//Determines whether a piece can be placed at specific coordinates.
-	public boolean isValidAndEmpty(TileType type, int x, int y, int rotation) {
-				
-		//Ensure the piece is in a valid column.
-		if(x < -type.getLeftInset(rotation) || x + type.getDimension() - type.getRightInset(rotation) >= COL_COUNT) {
-			return false;
+	//Gets the total height of the panel.
+	public int getPanelHeight() {
+		return panelHeight;
+	}
+
+	//Asks Swing to repaint only the parts of the panel that changed since the last call.
+	//When only the piece moved, that is the area the piece and its ghost covered before and after the move.
+	//Anything else, such as a change to the locked tiles or the game state, repaints the whole panel.
+	//frame: The snapshot that is about to be published. It is read before it is handed to the renderer, so it is never shared with the EDT.
+	public void repaintDirty(FrameSnapshot frame) {
+		//The overlay shows numbers that change all the time, so it is repainted on every tick while it is shown.
+		if(showOverlay) {
+			repaint(BORDER_WIDTH + OVERLAY_X, BORDER_WIDTH + OVERLAY_Y, OVERLAY_WIDTH, OVERLAY_HEIGHT);
 		}
 		
-		//Ensure the piece is in a valid row.
-		if(y < -type.getTopInset(rotation) || y + type.getDimension() - type.getBottomInset(rotation) >= ROW_COUNT) {
-			return false;
+		int state = frame.isPaused() ? 1 : (frame.isNewGame() || frame.isGameOver()) ? 2 : 0;
+		int version = frame.getBoard().getVersion();
+		if(state != paintedState || version != paintedVersion) {
+			this.paintedState = state;
+			this.paintedVersion = version;
+			if(state == 0) {
+				updatePaintedPiece(frame);
+			}
+			repaint();
+			return;
+		}
+		if(state != 0) {
+			return;
 		}
 		
-		//Loops through every tile in the piece and see if it conflicts with an existing tile.
-		for(int col = 0; col < type.getDimension(); col++) {
-			for(int row = 0; row < type.getDimension(); row++) {
-				if(type.isTile(col, row, rotation) && isOccupied(x + col, y + row)) {
-					return false;
-				}
-			}
+		//Repaint the old and new areas of the piece and ghost, if they moved.
+		int oldX = paintedPieceX, oldY = paintedPieceY, oldWidth = paintedPieceWidth, oldHeight = paintedPieceHeight, oldGhostY = paintedGhostY;
+		updatePaintedPiece(frame);
+		if(oldX != paintedPieceX || oldY != paintedPieceY || oldWidth != paintedPieceWidth || oldHeight != paintedPieceHeight || oldGhostY != paintedGhostY) {
+			repaint(oldX, oldY, oldWidth, oldHeight);
+			repaint(oldX, oldGhostY, oldWidth, oldHeight);
+			repaint(paintedPieceX, paintedPieceY, paintedPieceWidth, paintedPieceHeight);
+			repaint(paintedPieceX, paintedGhostY, paintedPieceWidth, paintedPieceHeight);
 		}
-		return true;
 	}
 	
-	//Adds a piece to the game board.
-	public void addPiece(TileType type, int x, int y, int rotation) {
-		//Loop through every tile within the piece and add it to the board only if the boolean that represents that tile is set to true.
-		for(int col = 0; col < type.getDimension(); col++) {
-			for(int row = 0; row < type.getDimension(); row++) {
-				if(type.isTile(col, row, rotation)) {
-					setTile(col + x, row + y, type);
-				}
-			}
-		}
+	//Records the area of the panel that the falling piece and its ghost cover, including the border offset.
+	private void updatePaintedPiece(FrameSnapshot frame) {
+		TileType type = frame.getPieceType();
+		TileShape shape = type.getShape(frame.getPieceRotation());
+		int dimension = type.getDimension();
+		
+		this.paintedPieceX = BORDER_WIDTH + (frame.getPieceCol() + shape.getLeftInset()) * tileSize;
+		this.paintedPieceWidth = (dimension - shape.getLeftInset() - shape.getRightInset() + 1) * tileSize;
+		this.paintedPieceHeight = (dimension - shape.getTopInset() - shape.getBottomInset() + 1) * tileSize;
+		this.paintedPieceY = BORDER_WIDTH + (frame.getPieceRow() + shape.getTopInset() - hiddenRowCount) * tileSize;
+		this.paintedGhostY = BORDER_WIDTH + (frame.getGhostRow() + shape.getTopInset() - hiddenRowCount) * tileSize;
 	}
 	
-	//Checks the board to see if any lines have been cleared and removes them from the game.
-	public int checkLines() {
-		int completedLines = 0;
-		
-		//Loops through every line and check it to see if it's been cleared or not.
-		//		 If it has, it increments the number of completed lines and checks the next row.
-		//		 The checkLine function handles clearing the line and shifting the rest of the board down.
-		for(int row = 0; row < ROW_COUNT; row++) {
-			if(checkLine(row)) {
-				completedLines++;
+	//Sets the metrics that are shown in the debug overlay and that record how long painting takes, or null to turn metrics off.
+	public void setMetrics(GameMetrics metrics) {
+		this.metrics = metrics;
+		if(metrics != null && overlayLabels == null) {
+			String[] labels = {"time (us)", "p50", "p99", "max", "tick", "render", "paint", "wait", "input",
+					"missed frames", "catch-up ticks", "skipped ticks", "backlog ticks"};
+			this.overlayLabels = new TextImage[labels.length];
+			for(int i = 0; i < labels.length; i++) {
+				overlayLabels[i] = new TextImage(labels[i], OVERLAY_FONT, Color.WHITE);
 			}
+			this.overlayDigits = new DigitAtlas(OVERLAY_FONT, Color.WHITE);
 		}
-		return completedLines;
 	}
-			
-	//Checks whether the row is full.
-	private boolean checkLine(int line) {
-		/*
-		 * Iterate through every column in this row.
-		 * If any of them are empty, then the row is not full.
-		 */
-		for(int col = 0; col < COL_COUNT; col++) {
-			if(!isOccupied(col, line)) {
-				return false;
-			}
-		}
-		
-		//Remove the filled line from the game by shifting every row above it down
-		for(int row = line - 1; row >= 0; row--) {
-			for(int col = 0; col < COL_COUNT; col++) {
-				setTile(col, row + 1, getTile(col, row));
-			}
-		}
-		return true;
+	
+	//Shows or hides the debug overlay. It is only drawn while there are metrics to show.
+	public void setDebugOverlay(boolean show) {
+		this.showOverlay = show;
+		repaint();
 	}
 	
+	//Checks to see whether the debug overlay is shown.
+	public boolean isDebugOverlay() {
+		return showOverlay;
+	}
 	
-	//Checks to see if the tile is already occupied.
-	private boolean isOccupied(int x, int y) {
-		return tiles[y][x] != null;
+	//Gets the send time of the last action applied before the last drawn snapshot was taken, in nanoseconds.
+	public long getDrawnInputTime() {
+		return drawnInputTime;
 	}
 	
-	//Sets a tile located at the desired column and row.
-	private void setTile(int  x, int y, TileType type) {
-		tiles[y][x] = type;
+	//Sets the snapshot that the next paint draws. The GamePanel calls this at the start of every paint, so the board and the side panel draw the same one.
+	public void setPaintedFrame(FrameSnapshot frame) {
+		this.paintedFrame = frame;
 	}
-
-	//Gets the tile by its column and row.
-	private TileType getTile(int x, int y) {
-		return tiles[y][x];
+	
+	//Repaints are requested on the GamePanel the board is in, so a repaint of the board and one of the side panel for the same snapshot are painted together.
+	@Override
+	public void repaint(long tm, int x, int y, int width, int height) {
+		Container parent = getParent();
+		if(parent instanceof GamePanel) {
+			parent.repaint(tm, getX() + x, getY() + y, width, height);
+		} else {
+			super.repaint(tm, x, y, width, height);
+		}
 	}
 	
 	@Override
 	public void paintComponent(Graphics g) {
+		long start = (metrics != null) ? System.nanoTime() : 0L;
 		super.paintComponent(g);
+		if(paintedFrame == null) {
+			return;
+		}
+		render(g, paintedFrame);
+		if(metrics != null) {
+			long now = System.nanoTime();
+			metrics.getPaintTimes().record(now - start);
+			metrics.recordDisplayed(drawnInputTime, now);
+		}
+	}
+	
+	//Draws the board onto the given graphics, which is assumed to already be filled with the background color.
+	//This is used by paintComponent, and by the GameCanvas when the game is rendered actively.
+	//frame: The snapshot to draw. The side panel must be drawn from the same one, so it is taken once per frame by whoever draws both.
+	public void render(Graphics g, FrameSnapshot frame) {
+		this.drawnInputTime = frame.getLastInputTime();
 		
 		//Simplifying the positioning of things.
 		g.translate(BORDER_WIDTH, BORDER_WIDTH);
 		
 		//Draw the board differently depending on the current game state.
-		if(tetris.isPaused()) {
-			g.setFont(LARGE_FONT);
-			g.setColor(Color.BLACK);
-			String msg = "PAUSED";
-			g.drawString(msg, CENTER_X - g.getFontMetrics().stringWidth(msg) / 2, CENTER_Y);
-		} else if(tetris.isNewGame() || tetris.isGameOver()) {
-			g.setFont(LARGE_FONT);
-			g.setColor(Color.BLACK);
-			
+		if(frame.isPaused()) {
+			pausedText.draw(g, centerX - pausedText.getWidth() / 2, centerY);
+		} else if(frame.isNewGame() || frame.isGameOver()) {
 			//Game over and New game screens
-			String msg = tetris.isNewGame() ? "TETRIS" : "GAME OVER";
-			g.drawString(msg, CENTER_X - g.getFontMetrics().stringWidth(msg) / 2, 150);
-			g.setFont(SMALL_FONT);
-			msg = "Press Enter to Play" + (tetris.isNewGame() ? "" : "Again");
-			g.drawString(msg, CENTER_X - g.getFontMetrics().stringWidth(msg) / 2, 300);
+			TextImage msg = frame.isNewGame() ? titleText : gameOverText;
+			msg.draw(g, centerX - msg.getWidth() / 2, centerY - TITLE_OFFSET);
+			msg = frame.isNewGame() ? playText : playAgainText;
+			msg.draw(g, centerX - msg.getWidth() / 2, centerY + PROMPT_OFFSET);
 		} else {
 			
-			//Draw the tiles onto the board.
-			for(int x = 0; x < COL_COUNT; x++) {
-				for(int y = HIDDEN_ROW_COUNT; y < ROW_COUNT; y++) {
-					TileType tile = getTile(x, y);
-					if(tile != null) {
-						drawTile(tile, x * TILE_SIZE, (y - HIDDEN_ROW_COUNT) * TILE_SIZE, g);
-					}
-				}
+			//Draw the locked tiles and the grid from the cached layer, drawing the layer again only if the board changed since.
+			Board tiles = frame.getBoard();
+			if(stackLayer == null || layerVersion != tiles.getVersion()) {
+				paintStackLayer(tiles);
+				this.layerVersion = tiles.getVersion();
 			}
+			g.drawImage(stackLayer, 0, 0, null);
 			
 			//Draw the current piece
-			TileType type = tetris.getPieceType();
-			int pieceCol = tetris.getPieceCol();
-			int pieceRow = tetris.getPieceRow();
-			int rotation = tetris.getPieceRotation();
+			TileType type = frame.getPieceType();
+			int pieceCol = frame.getPieceCol();
+			int pieceRow = frame.getPieceRow();
+			int rotation = frame.getPieceRotation();
+			
+			TileShape shape = type.getShape(rotation);
 			
 			//Draw the piece onto the board.
-			for(int col = 0; col < type.getDimension(); col++) {
-				for(int row = 0; row < type.getDimension(); row++) {
-					if(pieceRow + row >= 2 && type.isTile(col, row, rotation)) {
-						drawTile(type, (pieceCol + col) * TILE_SIZE, (pieceRow + row - HIDDEN_ROW_COUNT) * TILE_SIZE, g);
-					}
+			for(int cell = 0; cell < shape.getCellCount(); cell++) {
+				int col = shape.getCellX(cell);
+				int row = shape.getCellY(cell);
+				if(pieceRow + row >= hiddenRowCount) {
+					drawTile(type, (pieceCol + col) * tileSize, (pieceRow + row - hiddenRowCount) * tileSize, g);
 				}
 			}
 			
 			//Draw the ghost piece (Transparent piece)
-			Color base = type.getBaseColor();
-			base = new Color(base.getRed(), base.getGreen(), base.getBlue(), 20);
-			for(int lowest = pieceRow; lowest < ROW_COUNT; lowest++) {
-				//If no collision is detected, try the next row.
-				if(isValidAndEmpty(type, pieceCol, lowest, rotation)) {					
-					continue;
+			int lowest = frame.getGhostRow();
+			for(int cell = 0; cell < shape.getCellCount(); cell++) {
+				int col = shape.getCellX(cell);
+				int row = shape.getCellY(cell);
+				if(lowest + row >= hiddenRowCount) {
+					sprites.drawTile(g, type, TileSprites.GHOST, (pieceCol + col) * tileSize, (lowest + row - hiddenRowCount) * tileSize);
 				}
-				
-				//Draw the ghost one row higher than the one the collision took place at.
-				lowest--;
-				
-				//Draw the ghost piece.
-				for(int col = 0; col < type.getDimension(); col++) {
-					for(int row = 0; row < type.getDimension(); row++) {
-						if(lowest + row >= 2 && type.isTile(col, row, rotation)) {
-							drawTile(base, base.brighter(), base.darker(), (pieceCol + col) * TILE_SIZE, (lowest + row - HIDDEN_ROW_COUNT) * TILE_SIZE, g);
-						}
-					}
-				}
-				
-				break;
 			}
 			
-			//Draw the background grid above the pieces
-			g.setColor(Color.DARK_GRAY);
-			for(int x = 0; x < COL_COUNT; x++) {
-				for(int y = 0; y < VISIBLE_ROW_COUNT; y++) {
-					g.drawLine(0, y * TILE_SIZE, COL_COUNT * TILE_SIZE, y * TILE_SIZE);
-					g.drawLine(x * TILE_SIZE, 0, x * TILE_SIZE, VISIBLE_ROW_COUNT * TILE_SIZE);
-				}
-			}
+			//Draw the background grid above the pieces, only over the areas the piece and the ghost cover.
+			drawGrid(shape, type.getDimension(), pieceCol, pieceRow, g);
+			drawGrid(shape, type.getDimension(), pieceCol, lowest, g);
 		}
 		
 		//Draw outline
 		g.setColor(Color.WHITE);
-		g.drawRect(0, 0, TILE_SIZE * COL_COUNT, TILE_SIZE * VISIBLE_ROW_COUNT);
-	}
-	
-	//Draws a tile onto the board.
-	private void drawTile(TileType type, int x, int y, Graphics g) {
-		drawTile(type.getBaseColor(), type.getLightColor(), type.getDarkColor(), x, y, g);
+		g.drawRect(0, 0, tileSize * colCount, tileSize * visibleRowCount);
+		
+		if(showOverlay && metrics != null) {
+			drawOverlay(g);
+		}
 	}
 	
-	/**
-	 * Draws: a tile onto the board.
-	 * base: The base color of tile.
-	 * light: The light color of the tile.
-	 * dark: The dark color of the tile.
-	 * x: The column.
-	 * y: The row.
-	 * g: The graphics object.
-	 */
-	private void drawTile(Color base, Color light, Color dark, int x, int y, Graphics g) {
+	//Draws the debug overlay: the p50, p99 and max of each histogram in the metrics, followed by the counters.
+	private void drawOverlay(Graphics g) {
+		g.setColor(OVERLAY_BACKGROUND);
+		g.fillRect(OVERLAY_X, OVERLAY_Y, OVERLAY_WIDTH, OVERLAY_HEIGHT);
 		
-		//Fill the entire tile with the base color.
-		g.setColor(base);
-		g.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+		int y = OVERLAY_Y + OVERLAY_LINE_HEIGHT;
+		overlayLabels[0].draw(g, OVERLAY_LABEL_X, y);
+		for(int column = 0; column < OVERLAY_COLUMN_X.length; column++) {
+			overlayLabels[1 + column].draw(g, OVERLAY_COLUMN_X[column], y);
+		}
 		
-		//Fill the bottom and right edges of the tile with the dark shading color.
-		g.setColor(dark);
-		g.fillRect(x, y + TILE_SIZE - SHADE_WIDTH, TILE_SIZE, SHADE_WIDTH);
-		g.fillRect(x + TILE_SIZE - SHADE_WIDTH, y, SHADE_WIDTH, TILE_SIZE);
+		y = drawOverlayTimes(g, overlayLabels[4], metrics.getTickTimes(), y + OVERLAY_LINE_HEIGHT);
+		y = drawOverlayTimes(g, overlayLabels[5], metrics.getRenderTimes(), y);
+		y = drawOverlayTimes(g, overlayLabels[6], metrics.getPaintTimes(), y);
+		y = drawOverlayTimes(g, overlayLabels[7], metrics.getWaitTimes(), y);
+		y = drawOverlayTimes(g, overlayLabels[8], metrics.getInputLatencies(), y);
 		
-		//Fill the top and left edges with the light shading
-		g.setColor(light);
-		for(int i = 0; i < SHADE_WIDTH; i++) {
-			g.drawLine(x, y + i, x + TILE_SIZE - i - 1, y + i);
-			g.drawLine(x + i, y, x + i, y + TILE_SIZE - i - 1);
+		y = drawOverlayCount(g, overlayLabels[9], metrics.getMissedFrames(), y);
+		y = drawOverlayCount(g, overlayLabels[10], metrics.getCatchUpTicks(), y);
+		y = drawOverlayCount(g, overlayLabels[11], metrics.getSkippedTicks(), y);
+		drawOverlayCount(g, overlayLabels[12], metrics.getCycleBacklogTicks(), y);
+	}
+	
+	//Draws one line of the debug overlay with the p50, p99 and max of a histogram in microseconds, and returns the baseline of the next line.
+	private int drawOverlayTimes(Graphics g, TextImage label, LatencyHistogram histogram, int y) {
+		label.draw(g, OVERLAY_LABEL_X, y);
+		overlayDigits.drawNumber(g, toMicros(histogram.getValueAtPercentile(50.0)), OVERLAY_COLUMN_X[0], y);
+		overlayDigits.drawNumber(g, toMicros(histogram.getValueAtPercentile(99.0)), OVERLAY_COLUMN_X[1], y);
+		overlayDigits.drawNumber(g, toMicros(histogram.getMax()), OVERLAY_COLUMN_X[2], y);
+		return y + OVERLAY_LINE_HEIGHT;
+	}
+	
+	//Draws one line of the debug overlay with a counter in the last column, and returns the baseline of the next line.
+	private int drawOverlayCount(Graphics g, TextImage label, long count, int y) {
+		label.draw(g, OVERLAY_LABEL_X, y);
+		overlayDigits.drawNumber(g, (int)Math.min(count, Integer.MAX_VALUE), OVERLAY_COLUMN_X[2], y);
+		return y + OVERLAY_LINE_HEIGHT;
+	}
+	
+	//Converts nanoseconds to whole microseconds, rounding up and capping at the largest int.
+	private static int toMicros(long nanos) {
+		return (int)Math.min((nanos + 999L) / 1000L, Integer.MAX_VALUE);
+	}
+	
+	//Draws the locked tiles and the grid into the stack layer, and the grid into the grid layer if it doesn't exist yet.
+	private void paintStackLayer(Board tiles) {
+		int width = colCount * tileSize;
+		int height = visibleRowCount * tileSize;
+		if(stackLayer == null) {
+			GraphicsConfiguration config = getGraphicsConfiguration();
+			if(config != null) {
+				this.stackLayer = config.createCompatibleImage(width, height, Transparency.OPAQUE);
+				this.gridLayer = config.createCompatibleImage(width, height, Transparency.BITMASK);
+			} else {
+				this.stackLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+				this.gridLayer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			}
+			
+			Graphics g = gridLayer.getGraphics();
+			try {
+				paintGridLines(g);
+			} finally {
+				g.dispose();
+			}
 		}
+		
+		Graphics g = stackLayer.getGraphics();
+		try {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, width, height);
+			
+			//Draw the tiles onto the board.
+			for(int x = 0; x < colCount; x++) {
+				for(int y = hiddenRowCount; y < rowCount; y++) {
+					TileType tile = tiles.getTile(x, y);
+					if(tile != null) {
+						drawTile(tile, x * tileSize, (y - hiddenRowCount) * tileSize, g);
+					}
+				}
+			}
+			
+			//Draw the background grid above the tiles
+			g.drawImage(gridLayer, 0, 0, null);
+		} finally {
+			g.dispose();
+		}
+	}
+	
+	//Draws the lines of the background grid.
+	private void paintGridLines(Graphics g) {
+		g.setColor(Color.DARK_GRAY);
+		for(int y = 0; y < visibleRowCount; y++) {
+			g.drawLine(0, y * tileSize, colCount * tileSize, y * tileSize);
+		}
+		for(int x = 0; x < colCount; x++) {
+			g.drawLine(x * tileSize, 0, x * tileSize, visibleRowCount * tileSize);
+		}
+	}
+	
+	//Draws the part of the grid layer that is covered by a piece at the given position.
+	private void drawGrid(TileShape shape, int dimension, int pieceCol, int pieceRow, Graphics g) {
+		int x1 = (pieceCol + shape.getLeftInset()) * tileSize;
+		int y1 = Math.max(0, (pieceRow + shape.getTopInset() - hiddenRowCount) * tileSize);
+		int x2 = (pieceCol + dimension - shape.getRightInset() + 1) * tileSize;
+		int y2 = (pieceRow + dimension - shape.getBottomInset() + 1 - hiddenRowCount) * tileSize;
+		if(y2 > y1) {
+			g.drawImage(gridLayer, x1, y1, x2, y2, x1, y1, x2, y2, null);
+		}
+	}
+	
+	//Draws a tile onto the board.
+	private void drawTile(TileType type, int x, int y, Graphics g) {
+		sprites.drawTile(g, type, TileSprites.NORMAL, x, y);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+//Responsible for playing a game without a player, for soak tests and for filling matches.
+//When a new piece appears the bot searches for the best place to put it, then sends one action per call to get it there: the rotations
+//first, then the moves to the side, then a hard drop, which is the same order the search expects the piece to be moved in.
+public class BotPlayer {
+
+	//The search that picks where each piece goes
+	private final PlacementSearch search;
+
+	//The piece count of the piece the bot is currently placing
+	private long piece;
+
+	//The rotation the current piece should end up in
+	private int targetRotation;
+
+	//The column the current piece should end up in
+	private int targetCol;
+
+	//The number of clockwise rotations still to be sent for the current piece
+	private int turnsLeft;
+
+	//Whether the bot has given up moving the current piece to the side
+	private boolean isBlocked;
+
+	//Creates a new bot that searches on the common pool
+	public BotPlayer() {
+		this(new PlacementSearch());
+	}
+
+	//Creates a new bot that uses the given search
+	public BotPlayer(PlacementSearch search) {
+		this.search = search;
+		this.piece = -1;
+	}
+
+	//Gets the next action the bot wants to take in the game, or null if it is waiting.
+	//This must be called from the thread that ticks the engine, normally once per tick.
+	public GameAction nextAction(GameEngine engine) {
+		if(engine.isNewGame() || engine.isGameOver()) {
+			return GameAction.START;
+		}
+		if(engine.isPaused()) {
+			return null;
+		}
+
+		//Plan where the piece goes the first time the bot sees it.
+		if(engine.getPieceCount() != piece) {
+			this.piece = engine.getPieceCount();
+			this.isBlocked = false;
+			if(search.search(engine.getBoard(), engine.getPieceType(), engine.getPieceCol(), engine.getPieceRow(), engine.getPieceRotation(), engine.getNextPieceType(),
+					engine.getRules().getRotationSystem())) {
+				this.targetRotation = search.getBestRotation();
+				this.targetCol = search.getBestCol();
+			} else {
+				this.targetRotation = engine.getPieceRotation();
+				this.targetCol = engine.getPieceCol();
+			}
+			this.turnsLeft = (targetRotation - engine.getPieceRotation()) & 3;
+		}
+
+		if(turnsLeft > 0) {
+			turnsLeft--;
+			return GameAction.ROTATE_CLOCKWISE;
+		}
+
+		//If the piece didn't move on the last step, something is in the way, so just drop it where it is.
+		int col = engine.getPieceCol();
+		if(!isBlocked && col != targetCol) {
+			int step = (col < targetCol) ? 1 : -1;
+			if(engine.getBoard().isValidAndEmpty(engine.getPieceType(), col + step, engine.getPieceRow(), engine.getPieceRotation())) {
+				return (step > 0) ? GameAction.MOVE_RIGHT : GameAction.MOVE_LEFT;
+			}
+			this.isBlocked = true;
+		}
+		return GameAction.HARD_DROP;
+	}
+
+	//Gets the search that the bot uses
+	public PlacementSearch getSearch() {
+		return search;
+	}
+
+}
\ No newline at end of file
@@ -1,8 +1,9 @@
 //Responsible for tracking the number of cycles that have elapsed over time.
+//All times are kept in whole nanoseconds so no precision is lost between updates.
 public class Clock {
 	
-	//The number of milliseconds that make up one cycle
-	private float millisPerCycle;
+	//The number of nanoseconds that make up one cycle
+	private long nanosPerCycle;
 	
 	//The last time that the clock was updated (used for calculating the delta time)
 	private long lastUpdate;
@@ -10,43 +11,60 @@ public class Clock {
 	//The number of cycles that have elapsed
 	private int elapsedCycles;
 	
-	//The amount of excess time towards the next elapsed cycle
-	private float excessCycles;
+	//The amount of excess time towards the next elapsed cycle, in nanoseconds
+	private long excessNanos;
 	
 	//Checks whether the clock is paused
 	private boolean isPaused;
 	
 	//Creates a new clock and sets it's cycles-per-second
 	public Clock(float cyclesPerSecond) {
+		this(cyclesPerSecond, getCurrentTime());
+	}
+	
+	//Creates a new clock that is driven by the given time instead of the computer's clock.
+	//currentTime: The current time in nanoseconds
+	public Clock(float cyclesPerSecond, long currentTime) {
 		setCyclesPerSecond(cyclesPerSecond);
-		reset();
+		reset(currentTime);
 	}
 	
 	//Sets the number of cycles that elapse per second.
 	public void setCyclesPerSecond(float cyclesPerSecond) {
-		this.millisPerCycle = (1.0f / cyclesPerSecond) * 1000;
+		this.nanosPerCycle = Math.max(1L, (long)(1000000000.0 / cyclesPerSecond));
 	}
 	
 	//Resets the clock stats. Elapsed cycles and cycle excess will be reset to 0.
 	//The last update time will be reset to the current time, and the paused flag will be set to false.
 	public void reset() {
+		reset(getCurrentTime());
+	}
+	
+	//Resets the clock stats, using the given time as the last update time.
+	//currentTime: The current time in nanoseconds
+	public void reset(long currentTime) {
 		this.elapsedCycles = 0;
-		this.excessCycles = 0.0f;
-		this.lastUpdate = getCurrentTime();
+		this.excessNanos = 0L;
+		this.lastUpdate = currentTime;
 		this.isPaused = false;
 	}
 	
 	//Updates the clock stats
 	//The number of elapsed cycles, as well as the cycle excess will be calculated only if the clock is not paused
 	public void update() {
-		//Get the current time and calculate the delta time.
-		long currUpdate = getCurrentTime();
-		float delta = (float)(currUpdate - lastUpdate) + excessCycles;
+		update(getCurrentTime());
+	}
+	
+	//Updates the clock stats, using the given time instead of the computer's clock.
+	//currUpdate: The current time in nanoseconds
+	public void update(long currUpdate) {
+		//Calculate the delta time.
+		long delta = (currUpdate - lastUpdate) + excessNanos;
 		
 		//Update the number of elapsed and excess ticks if not paused.
 		if(!isPaused) {
-			this.elapsedCycles += (int)Math.floor(delta / millisPerCycle);
-			this.excessCycles = delta % millisPerCycle;
+			this.elapsedCycles += (int)(delta / nanosPerCycle);
+			this.excessNanos = delta % nanosPerCycle;
 		}
 		
 		//Sets the last update time for the next update cycle.
@@ -74,15 +92,20 @@ public class Clock {
 		return false;
 	}
 
+	//Gets the number of cycles that have elapsed and not been consumed yet
+	public int getElapsedCycles() {
+		return elapsedCycles;
+	}
+	
 	 //Checks to see if a cycle has elapsed for this clock yet.
 	 //The number of cycles will not be decremented if the number of elapsed cycles is greater than 0.
 	public boolean peekElapsedCycle() {
 		return (elapsedCycles > 0);
 	}
 	
-	//Calculates the current time in milliseconds using the computer's high resolution clock
+	//Calculates the current time in nanoseconds using the computer's high resolution clock
 	private static final long getCurrentTime() {
-		return (System.nanoTime() / 1000000L);
+		return System.nanoTime();
 	}
 
 }
\ No newline at end of file
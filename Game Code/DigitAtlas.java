@@ -0,0 +1,58 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+
+//Responsible for drawing numbers that change often, such as the score, from pre-rendered digits.
+//Numbers are split into digits with arithmetic rather than turned into strings, so drawing a number doesn't create any objects.
+//An atlas keeps scratch space for the digits, so it must only be used by one thread at a time.
+public class DigitAtlas {
+
+	//The largest number of digits in an int
+	private static final int MAX_DIGITS = 10;
+
+	//The digits 0 to 9
+	private final TextImage[] digits;
+
+	//The minus sign
+	private final TextImage minus;
+
+	//The digits of the number being drawn, from the lowest up
+	private final byte[] scratch;
+
+	//Creates a new atlas
+	public DigitAtlas(Font font, Color color) {
+		this.digits = new TextImage[10];
+		for(int i = 0; i < digits.length; i++) {
+			digits[i] = new TextImage(String.valueOf((char)('0' + i)), font, color);
+		}
+		this.minus = new TextImage("-", font, color);
+		this.scratch = new byte[MAX_DIGITS];
+	}
+
+	//Draws a number with its origin (the left end of its baseline) at the given point, just like drawString
+	//Returns the x coordinate where text after the number would start.
+	public int drawNumber(Graphics g, int value, int x, int y) {
+		//Work with the negative value, since every int has a negative counterpart but not every int has a positive one.
+		int remaining = value;
+		if(remaining < 0) {
+			minus.draw(g, x, y);
+			x += minus.getWidth();
+		} else {
+			remaining = -remaining;
+		}
+
+		int count = 0;
+		do {
+			scratch[count++] = (byte)-(remaining % 10);
+			remaining /= 10;
+		} while(remaining != 0);
+
+		while(count > 0) {
+			TextImage digit = digits[scratch[--count]];
+			digit.draw(g, x, y);
+			x += digit.getWidth();
+		}
+		return x;
+	}
+
+}
\ No newline at end of file
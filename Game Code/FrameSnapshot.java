@@ -0,0 +1,181 @@
+//Holds a copy of everything needed to draw one frame of the game.
+//Snapshots are filled by the game loop and handed to the renderer through a SnapshotExchange. Once a snapshot has been published it is never
+//written to until the renderer has handed it back, so the renderer can read it without any locking while the game keeps running.
+public class FrameSnapshot {
+
+	//A copy of the board
+	private final Board board;
+
+	//Whether the game is paused or not
+	private boolean isPaused;
+
+	//Whether the game has been played or not yet
+	private boolean isNewGame;
+
+	//Whether the game is over or not yet
+	private boolean isGameOver;
+
+	//The current level
+	private int level;
+
+	//The current score
+	private int score;
+
+	//The current type of tile
+	private TileType pieceType;
+
+	//The upcoming types of tile, starting with the next one
+	private TileType[] previews;
+
+	//The type of tile in the hold slot, or null
+	private TileType holdType;
+
+	//The number of pieces that had been spawned
+	private long pieceCount;
+
+	//The column of the current piece
+	private int pieceCol;
+
+	//The row of the current piece
+	private int pieceRow;
+
+	//The rotation of the current piece
+	private int pieceRotation;
+
+	//The lowest row the current piece can fall to
+	private int ghostRow;
+
+	//The tick the snapshot was taken on
+	private long tickCount;
+
+	//The time the last action applied before the snapshot was taken was sent, in nanoseconds
+	private long lastInputTime;
+
+	//Creates a new, empty snapshot
+	public FrameSnapshot() {
+		this.board = new Board();
+		this.previews = new TileType[0];
+	}
+
+	//Copies the state of the engine into the snapshot
+	public void copyFrom(GameEngine engine) {
+		//The board only needs to be copied if it changed since this snapshot was last filled, or if it is a different size.
+		Board source = engine.getBoard();
+		if(board.getVersion() != source.getVersion() || board.getConfig() != source.getConfig()) {
+			board.copyFrom(source);
+		}
+
+		this.isPaused = engine.isPaused();
+		this.isNewGame = engine.isNewGame();
+		this.isGameOver = engine.isGameOver();
+		this.level = engine.getLevel();
+		this.score = engine.getScore();
+		this.pieceType = engine.getPieceType();
+		if(previews.length != engine.getPreviewCount()) {
+			this.previews = new TileType[engine.getPreviewCount()];
+		}
+		for(int i = 0; i < previews.length; i++) {
+			previews[i] = engine.getPreviewType(i);
+		}
+		this.holdType = engine.getHoldType();
+		this.pieceCount = engine.getPieceCount();
+		this.pieceCol = engine.getPieceCol();
+		this.pieceRow = engine.getPieceRow();
+		this.pieceRotation = engine.getPieceRotation();
+		this.ghostRow = (pieceType != null) ? engine.getLandingRow() : pieceRow;
+		this.tickCount = engine.getTickCount();
+		this.lastInputTime = engine.getLastInputTime();
+	}
+
+	//Gets the copy of the board
+	public Board getBoard() {
+		return board;
+	}
+
+	//Checks to see whether the game is paused
+	public boolean isPaused() {
+		return isPaused;
+	}
+
+	//Checks to see whether the game is over
+	public boolean isGameOver() {
+		return isGameOver;
+	}
+
+	//Checks to see whether the players are on a new game
+	public boolean isNewGame() {
+		return isNewGame;
+	}
+
+	//Gets the current score
+	public int getScore() {
+		return score;
+	}
+
+	//Gets the current level
+	public int getLevel() {
+		return level;
+	}
+
+	//Gets the current type of piece
+	public TileType getPieceType() {
+		return pieceType;
+	}
+
+	//Gets the next type of piece
+	public TileType getNextPieceType() {
+		return previews[0];
+	}
+
+	//Gets one of the upcoming types of piece
+	//index: The number of pieces that will be used before it, so 0 is the next piece
+	public TileType getPreviewType(int index) {
+		return previews[index];
+	}
+
+	//Gets the number of upcoming types of piece
+	public int getPreviewCount() {
+		return previews.length;
+	}
+
+	//Gets the type of piece in the hold slot, or null if the slot is empty
+	public TileType getHoldType() {
+		return holdType;
+	}
+
+	//Gets the number of pieces that had been spawned
+	public long getPieceCount() {
+		return pieceCount;
+	}
+
+	//Gets the column of the current piece
+	public int getPieceCol() {
+		return pieceCol;
+	}
+
+	//Gets the row of the current piece
+	public int getPieceRow() {
+		return pieceRow;
+	}
+
+	//Gets the rotation of the current piece
+	public int getPieceRotation() {
+		return pieceRotation;
+	}
+
+	//Gets the lowest row the current piece can fall to
+	public int getGhostRow() {
+		return ghostRow;
+	}
+
+	//Gets the tick the snapshot was taken on
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	//Gets the time the last action applied before the snapshot was taken was sent, in nanoseconds
+	public long getLastInputTime() {
+		return lastInputTime;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+//Describes the inputs that the player can send to the game.
+public enum GameAction {
+
+	//Moves the piece one column to the left
+	MOVE_LEFT,
+
+	//Moves the piece one column to the right
+	MOVE_RIGHT,
+
+	//Rotates the piece anticlockwise
+	ROTATE_ANTICLOCKWISE,
+
+	//Rotates the piece clockwise
+	ROTATE_CLOCKWISE,
+
+	//Starts dropping the piece faster
+	DROP,
+
+	//Stops dropping the piece faster
+	DROP_RELEASED,
+
+	//Pauses or resumes the game
+	PAUSE,
+
+	//Starts a new game
+	START,
+
+	//Drops the piece straight down and locks it
+	HARD_DROP,
+
+	//Swaps the piece with the one in the hold slot
+	HOLD;
+
+}
\ No newline at end of file
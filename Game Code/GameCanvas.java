@@ -0,0 +1,190 @@
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+
+//Responsible for actively rendering the game.
+//Instead of asking Swing to repaint the panels, the game loop draws the board and the side panel into a back buffer in one pass and shows it right away,
+//so every frame that is rendered is actually presented, and the loop knows when it was.
+public class GameCanvas extends Canvas {
+
+	//The number of buffers to use, including the one on screen
+	private static final int BUFFER_COUNT = 2;
+
+	//The exchange that the snapshots of the game are read from
+	private final SnapshotExchange frames;
+
+	//The board that is drawn on the left
+	private final BoardPanel board;
+
+	//The side panel that is drawn on the right
+	private final SidePanel side;
+
+	//The buffer strategy that frames are drawn to
+	private BufferStrategy strategy;
+
+	//Whether the buffer strategy flips pages instead of copying the back buffer
+	private boolean isPageFlipping;
+
+	//The number of frames that have been presented
+	private long presentedFrames;
+
+	//The time that the last frame was presented, in nanoseconds
+	private long lastPresentTime;
+
+	//The time between the last two presented frames, in nanoseconds
+	private long lastFrameNanos;
+
+	//The total time between presented frames, used to calculate the average
+	private long totalFrameNanos;
+
+	//The time it took to draw and present the last frame, in nanoseconds
+	private long lastRenderNanos;
+
+	//Records how long frames take and when actions reach the screen, or null to not record
+	private GameMetrics metrics;
+
+	//The width of the board panel, and the height of both panels
+	private final int boardWidth, height;
+
+	//Creates a new canvas that draws the given board and side panel
+	//frames: The exchange that the snapshots of the game are read from
+	public GameCanvas(SnapshotExchange frames, BoardPanel board, SidePanel side) {
+		this.frames = frames;
+		this.board = board;
+		this.side = side;
+
+		this.boardWidth = board.getPanelWidth();
+		this.height = Math.max(board.getPanelHeight(), side.getPanelHeight());
+		setPreferredSize(new Dimension(boardWidth + SidePanel.PANEL_WIDTH, height));
+		setIgnoreRepaint(true);
+
+		//The window reads the keys, so the canvas should never take the focus away from it.
+		setFocusable(false);
+	}
+
+	//Creates the buffer strategy. Must be called once the canvas is displayable.
+	//Page flipping is used where it is available, otherwise the back buffer is copied to the screen.
+	//Returns false if no buffer strategy could be created, in which case the game should fall back to passive rendering.
+	public boolean createStrategy() {
+		try {
+			createBufferStrategy(BUFFER_COUNT, new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED));
+		} catch(AWTException e) {
+			try {
+				createBufferStrategy(BUFFER_COUNT);
+			} catch(RuntimeException fallback) {
+				return false;
+			}
+		} catch(RuntimeException e) {
+			return false;
+		}
+
+		this.strategy = getBufferStrategy();
+		if(strategy == null) {
+			return false;
+		}
+		this.isPageFlipping = strategy.getCapabilities().isPageFlipping();
+		return true;
+	}
+
+	//Draws a frame and presents it
+	public void render() {
+		long start = System.nanoTime();
+
+		//The contents of the buffers can be lost at any time (for example when the display mode changes), so keep drawing until a frame makes it to the screen.
+		do {
+			do {
+				Graphics g = strategy.getDrawGraphics();
+				try {
+					draw(g);
+				} finally {
+					g.dispose();
+				}
+			} while(strategy.contentsRestored());
+			strategy.show();
+		} while(strategy.contentsLost());
+
+		//Make sure the frame is actually sent to the screen on platforms that buffer drawing commands.
+		Toolkit.getDefaultToolkit().sync();
+
+		//Record when the frame was presented.
+		long now = System.nanoTime();
+		if(presentedFrames > 0) {
+			lastFrameNanos = now - lastPresentTime;
+			totalFrameNanos += lastFrameNanos;
+		}
+		lastPresentTime = now;
+		lastRenderNanos = now - start;
+		presentedFrames++;
+		if(metrics != null) {
+			metrics.getRenderTimes().record(lastRenderNanos);
+			metrics.recordDisplayed(board.getDrawnInputTime(), now);
+		}
+	}
+
+	//Sets the metrics that record how long frames take and when actions reach the screen, or null to not record
+	public void setMetrics(GameMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	//Draws the board and the side panel next to each other, the same way the window lays out the panels
+	private void draw(Graphics g) {
+		//Take the newest snapshot of the game once, so both panels draw the same one. Nothing else writes to it until the next frame.
+		FrameSnapshot frame = frames.acquire();
+
+		g.setColor(Color.GRAY);
+		g.fillRect(0, 0, boardWidth, height);
+		g.setColor(Color.LIGHT_GRAY);
+		g.fillRect(boardWidth, 0, SidePanel.PANEL_WIDTH, height);
+
+		Graphics boardGraphics = g.create(0, 0, boardWidth, height);
+		try {
+			board.render(boardGraphics, frame);
+		} finally {
+			boardGraphics.dispose();
+		}
+
+		Graphics sideGraphics = g.create(boardWidth, 0, SidePanel.PANEL_WIDTH, height);
+		try {
+			side.render(sideGraphics, frame);
+		} finally {
+			sideGraphics.dispose();
+		}
+	}
+
+	//Checks to see whether the buffer strategy flips pages instead of copying the back buffer
+	public boolean isPageFlipping() {
+		return isPageFlipping;
+	}
+
+	//Gets the number of frames that have been presented
+	public long getPresentedFrames() {
+		return presentedFrames;
+	}
+
+	//Gets the time that the last frame was presented, in nanoseconds
+	public long getLastPresentTime() {
+		return lastPresentTime;
+	}
+
+	//Gets the time between the last two presented frames, in nanoseconds
+	public long getLastFrameNanos() {
+		return lastFrameNanos;
+	}
+
+	//Gets the average time between presented frames, in nanoseconds
+	public long getAverageFrameNanos() {
+		return (presentedFrames > 1) ? totalFrameNanos / (presentedFrames - 1) : 0L;
+	}
+
+	//Gets the time it took to draw and present the last frame, in nanoseconds
+	public long getLastRenderNanos() {
+		return lastRenderNanos;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,671 @@
+import java.util.SplittableRandom;
+
+//Responsible for the rules of the game.
+//The engine has no AWT or Swing dependencies and does not read the system clock. Time only moves forward when tick() is called,
+//so two engines created with the same seed and given the same actions on the same ticks will always end up in the same state.
+public class GameEngine {
+
+	//The number of ticks that are run every second
+	public static final int TICK_RATE = 50;
+
+	//The number of nanoseconds of game time that pass on every tick
+	public static final long TICK_NANOS = 1000000000L / TICK_RATE;
+
+	//The number of actions that can be waiting for the next tick
+	public static final int INPUT_CAPACITY = 64;
+
+	//The version of the rules. This must be changed whenever a change to the rules would make an old replay play out differently.
+	public static final int RULESET_VERSION = 5;
+
+	//The number of upcoming pieces that can be seen by default
+	public static final int DEFAULT_PREVIEW_COUNT = 5;
+
+	//The number of attacks that can be waiting to be added to the board as garbage
+	public static final int GARBAGE_CAPACITY = 64;
+
+	//The type of tile that garbage rows are drawn as
+	private static final TileType GARBAGE_TYPE = TileType.TypeZ;
+
+	//The tiles that make up the board
+	private Board board;
+
+	//The timings of the rules
+	private GameRules rules;
+
+	//Whether the game is paused or not
+	private boolean isPaused;
+
+	//Whether the game has been played or not yet.
+	//This is set to true initially and then set to false when the game starts
+	private boolean isNewGame;
+
+	//Whether the game is over or not yet
+	private boolean isGameOver;
+
+	//The current level the player's on
+	private int level;
+
+	//The current score
+	private int score;
+
+	//The seed the random number generator was created with
+	private long seed;
+
+	//The random number generator that every other random number generator in the engine is split from
+	private SplittableRandom random;
+
+	//The way the order of the pieces is picked
+	private Randomizer randomizer;
+
+	//The upcoming pieces
+	private PieceQueue pieces;
+
+	//The clock that handles the update logic
+	private Clock logicTimer;
+
+	//The current type of tile
+	private TileType currentType;
+
+	//The type of the piece in the hold slot, or null if the slot is empty
+	private TileType holdType;
+
+	//The current column of our tile
+	private int currentCol;
+
+	//The current row of our tile
+	private int currentRow;
+
+	//The current rotation of our tile
+	private int currentRotation;
+
+	//The game time a piece was spawned plus the drop cooldown, before which the piece can't be soft dropped
+	private long dropAllowedTime;
+
+	//How long the current piece has been resting on the stack, in nanoseconds of game time
+	private long lockNanos;
+
+	//The number of times the lock delay of the current piece has been restarted by moving or rotating it
+	private int lockResets;
+
+	//The lowest row the current piece has reached
+	private int lowestRow;
+
+	//Whether the current piece can be swapped into the hold slot. Only one swap is allowed per piece.
+	private boolean canHold;
+
+	//The speed of the game
+	private float gameSpeed;
+
+	//The number of ticks that have been run
+	private long tickCount;
+
+	//The number of pieces that have been spawned since the engine was created
+	private long pieceCount;
+
+	//The rows that were cleared by the last piece that was placed, from top to bottom
+	private int[] clearedRows;
+
+	//The number of rows that were cleared by the last piece that was placed
+	private int clearedCount;
+
+	//The actions waiting to be applied at the start of the next tick
+	private InputQueue inputs;
+
+	//The time the last action taken from the input queue was sent, in nanoseconds
+	private long lastInputTime;
+
+	//The number of ticks on which more than one update of the game was due, so updates were falling behind the logic timer.
+	//Only written by the thread that runs the engine. Other threads may read it for reporting.
+	private long cycleBacklogTicks;
+
+	//Receives every action that is applied, or null
+	private InputListener inputListener;
+
+	//The garbage sent by opponents in a versus match, waiting to be added to the board
+	private GarbageQueue garbage;
+
+	//Picks the column of the hole in each attack of garbage
+	private SplittableRandom garbageRandom;
+
+	//Decides how many lines of garbage are sent when lines are cleared
+	private AttackTable attackTable;
+
+	//Receives the garbage sent to opponents, or null when the engine isn't in a versus match
+	private AttackListener attackListener;
+
+	//The number of pieces in a row, before the last one, that cleared lines, or -1 if the last piece didn't clear any
+	private int combo;
+
+	//The total number of lines of garbage sent to opponents
+	private long sentLines;
+
+	//The total number of lines of garbage added to the board
+	private long receivedLines;
+
+	//Creates a new engine that is waiting for the player to start the game, picking every piece uniformly
+	//seed: The seed of the random number generator that picks the pieces
+	public GameEngine(long seed) {
+		this(seed, Randomizer.UNIFORM, DEFAULT_PREVIEW_COUNT);
+	}
+
+	//Creates a new engine that is waiting for the player to start the game
+	//seed: The seed of the random number generator that picks the pieces
+	//randomizer: The way the order of the pieces is picked
+	//previewCount: The number of upcoming pieces that can be seen
+	public GameEngine(long seed, Randomizer randomizer, int previewCount) {
+		this(seed, randomizer, previewCount, GameRules.STANDARD);
+	}
+
+	//Creates a new engine that is waiting for the player to start the game
+	//seed: The seed of the random number generator that picks the pieces
+	//randomizer: The way the order of the pieces is picked
+	//previewCount: The number of upcoming pieces that can be seen
+	//rules: The timings of the rules
+	public GameEngine(long seed, Randomizer randomizer, int previewCount, GameRules rules) {
+		this(seed, randomizer, previewCount, rules, BoardConfig.STANDARD);
+	}
+
+	//Creates a new engine that is waiting for the player to start the game
+	//seed: The seed of the random number generator that picks the pieces
+	//randomizer: The way the order of the pieces is picked
+	//previewCount: The number of upcoming pieces that can be seen
+	//rules: The timings of the rules
+	//config: The size of the board
+	public GameEngine(long seed, Randomizer randomizer, int previewCount, GameRules rules, BoardConfig config) {
+		//Initialize the board, random number generators, logic timer, and new game variables
+		this.board = new Board(config);
+		this.rules = rules;
+		this.inputs = new InputQueue(INPUT_CAPACITY);
+		this.clearedRows = new int[board.getRowCount()];
+		this.seed = seed;
+		this.random = new SplittableRandom(seed);
+		this.randomizer = randomizer;
+		this.pieces = new PieceQueue(randomizer.create(random.split()), previewCount);
+		this.garbage = new GarbageQueue(GARBAGE_CAPACITY);
+		this.garbageRandom = random.split();
+		this.attackTable = AttackTable.STANDARD;
+		this.combo = -1;
+		this.isNewGame = true;
+		this.gameSpeed = 1.0f;
+
+		//Setup the timer to keep the game from running before the user presses enter to start it
+		this.logicTimer = new Clock(gameSpeed, getTime());
+		logicTimer.setPaused(true);
+	}
+
+	//Applies an action sent by the player right away.
+	//This must be called from the thread that ticks the engine. Other threads should send actions through the input queue instead.
+	public void handleAction(GameAction action) {
+		if(inputListener != null) {
+			inputListener.onInput(tickCount, action);
+		}
+
+		switch(action) {
+
+			//Drop - Checks to see that the game is not paused and that the drop cooldown has passed, then set the logic timer to run at the soft drop speed
+			case DROP:
+				if(!isPaused && getTime() >= dropAllowedTime) {
+					logicTimer.setCyclesPerSecond(rules.getSoftDropSpeed());
+				}
+				break;
+
+			//Drop released - The speed of the logic time is set back to whatever the current game speed is and clear out any cycles that might still be elapsed.
+			case DROP_RELEASED:
+				logicTimer.setCyclesPerSecond(gameSpeed);
+				logicTimer.reset(getTime());
+				break;
+
+			//Move Left - Checks to see that a game is being played and that the position to the left of the current position is valid. If so, we decrement the current column by 1.
+			case MOVE_LEFT:
+				if(isPlaying() && board.isValidAndEmpty(currentType, currentCol - 1, currentRow, currentRotation)) {
+					currentCol--;
+					onPieceMoved();
+				}
+				break;
+
+			//Move Right - Checks to see that a game is being played and that the position to the right of the current position is valid. If so, we increment the current column by 1.
+			case MOVE_RIGHT:
+				if(isPlaying() && board.isValidAndEmpty(currentType, currentCol + 1, currentRow, currentRotation)) {
+					currentCol++;
+					onPieceMoved();
+				}
+				break;
+
+			//Rotate Anticlockwise - Checks to see that a game is being played and then attempt to rotate the piece anticlockwise
+			case ROTATE_ANTICLOCKWISE:
+				if(isPlaying()) {
+					rotatePiece((currentRotation == 0) ? 3 : currentRotation - 1);
+				}
+				break;
+
+			//Rotate Clockwise - Checks to see that a game is being played and then attempt to rotate the piece clockwise.
+			case ROTATE_CLOCKWISE:
+				if(isPlaying()) {
+					rotatePiece((currentRotation == 3) ? 0 : currentRotation + 1);
+				}
+				break;
+
+			//Hard Drop - Checks to see that a game is being played, then moves the piece straight to the row it would land on and locks it there.
+			case HARD_DROP:
+				if(isPlaying()) {
+					currentRow = getLandingRow();
+					lockPiece();
+				}
+				break;
+
+			//Hold - Checks to see that a game is being played and that the piece hasn't been held already, then swaps it with the hold slot.
+			case HOLD:
+				if(isPlaying() && canHold) {
+					holdPiece();
+				}
+				break;
+
+			/*
+			 * Pause Game - Checks to see that the players are currently playing a game.
+			 * If the players are, toggle the pause variable and update the logic timer to reflect this change, otherwise the game will execute a huge number of updates and essentially cause an instant game over when the players unpause if the players stay paused for more than a minute.
+			 */
+			case PAUSE:
+				if(!isGameOver && !isNewGame) {
+					isPaused = !isPaused;
+					logicTimer.setPaused(isPaused);
+				}
+				break;
+
+			//Start Game - Checks to see that we're in either a game over or new game state.
+			case START:
+				if(isGameOver || isNewGame) {
+					resetGame();
+				}
+				break;
+
+		}
+	}
+
+	//Runs one tick of the game, moving the game time forward by TICK_NANOS nanoseconds
+	//Any actions waiting in the input queue are applied first, in the order they were sent.
+	//Returns the number of actions that were applied.
+	public int tick() {
+		int applied = 0;
+		GameAction action;
+		while((action = inputs.poll()) != null) {
+			this.lastInputTime = inputs.getPolledTime();
+			handleAction(action);
+			applied++;
+		}
+
+		tickCount++;
+
+		//Update the logic timer.
+		logicTimer.update(getTime());
+		if(logicTimer.getElapsedCycles() > 1) {
+			cycleBacklogTicks++;
+		}
+
+		//Update the game if a cycle has elapsed on the timer
+		if(logicTimer.hasElapsedCycle()) {
+			updateGame();
+		}
+
+		//Lock the piece once it has rested on the stack for long enough.
+		if(isPlaying()) {
+			updateLockDelay();
+		}
+		return applied;
+	}
+
+	//Updates the game and handles the bulk of it's logic
+	private void updateGame() {
+		//Check to see if the piece's position can move down to the next row. If it can't, the lock delay decides when it locks.
+		if(board.isValidAndEmpty(currentType, currentCol, currentRow + 1, currentRotation)) {
+			//Increment the current row if it's safe to do so.
+			currentRow++;
+			updateLowestRow();
+		}
+	}
+
+	//Counts how long the piece has been resting on the stack, and locks it once that reaches the lock delay.
+	//A piece that can fall again, for example after being moved off a ledge, stops counting until it lands.
+	private void updateLockDelay() {
+		if(board.isValidAndEmpty(currentType, currentCol, currentRow + 1, currentRotation)) {
+			this.lockNanos = 0;
+			return;
+		}
+		this.lockNanos += TICK_NANOS;
+		if(lockNanos >= rules.getLockDelayNanos()) {
+			lockPiece();
+		}
+	}
+
+	//Restarts the lock delay after the piece was moved or rotated, if it was resting and hasn't used up its resets
+	private void onPieceMoved() {
+		updateLowestRow();
+		if(lockNanos > 0 && lockResets < rules.getMaxLockResets()) {
+			this.lockNanos = 0;
+			this.lockResets++;
+		}
+	}
+
+	//Gives the piece all of its lock resets back when it reaches a row lower than it has been before
+	private void updateLowestRow() {
+		if(currentRow > lowestRow) {
+			this.lowestRow = currentRow;
+			this.lockResets = 0;
+		}
+	}
+
+	//Locks the piece where it is, clears any full lines and spawns the next piece
+	private void lockPiece() {
+		board.addPiece(currentType, currentCol, currentRow, currentRotation);
+
+		/*
+		 * Check to see if adding the new piece resulted in any cleared lines.
+		 * If there are cleared lines, increase the player's score. (Up to 4 lines can be cleared in a single go)
+		 * [1 = 100pts, 2 = 200pts, 3 = 400pts, 4 = 800pts]).
+		 */
+		int cleared = board.checkLines(clearedRows);
+		this.clearedCount = cleared;
+		if(cleared > 0) {
+			score += 50 << cleared;
+			combo++;
+			sendAttack(attackTable.getAttack(cleared, combo));
+		} else {
+			combo = -1;
+		}
+
+		//Increase the speed slightly for the next piece and update the game's timer
+		gameSpeed += 0.035f;
+		logicTimer.setCyclesPerSecond(gameSpeed);
+		logicTimer.reset(getTime());
+
+		//Update the difficulty level
+		level = (int)(gameSpeed * 1.70f);
+
+		//Garbage only rises when a piece doesn't clear any lines, so clearing lines holds it back.
+		if(cleared == 0) {
+			addGarbage();
+		}
+
+		//Spawn a new piece, which can be held again
+		canHold = true;
+		spawnPiece();
+	}
+
+	//Cancels as much waiting garbage as the attack can, and sends the rest to the opponents
+	private void sendAttack(int lines) {
+		if(lines <= 0 || attackListener == null) {
+			return;
+		}
+		lines = garbage.cancel(lines);
+		if(lines > 0) {
+			this.sentLines += lines;
+			attackListener.onAttack(lines);
+		}
+	}
+
+	//Adds every waiting attack to the bottom of the board, each with its own hole. Ends the game if the stack is pushed out of the top.
+	private void addGarbage() {
+		int lines;
+		while((lines = garbage.poll()) > 0) {
+			this.receivedLines += lines;
+			if(board.insertGarbage(lines, garbageRandom.nextInt(board.getColCount()), GARBAGE_TYPE)) {
+				this.isGameOver = true;
+				logicTimer.setPaused(true);
+			}
+		}
+	}
+
+	//Puts the current piece in the hold slot, and takes out the piece that was there, or the next piece if the slot was empty
+	private void holdPiece() {
+		TileType held = holdType;
+		this.holdType = currentType;
+		this.canHold = false;
+		if(held != null) {
+			spawnPiece(held);
+		} else {
+			spawnPiece();
+		}
+	}
+
+	//Resets the game variables to their default values at the start of a new game
+	private void resetGame() {
+		this.level = 1;
+		this.score = 0;
+		this.gameSpeed = 1.0f;
+		this.holdType = null;
+		this.canHold = true;
+		this.isNewGame = false;
+		this.isGameOver = false;
+		this.combo = -1;
+		garbage.clear();
+		board.clear();
+		logicTimer.reset(getTime());
+		logicTimer.setCyclesPerSecond(gameSpeed);
+		spawnPiece();
+	}
+
+	//Spawns the next piece from the queue
+	private void spawnPiece() {
+		spawnPiece(pieces.next());
+	}
+
+	//Spawns a piece of the given type and resets our piece's variables to their default values
+	private void spawnPiece(TileType type) {
+		//Reset our position and rotation to their original settings, and start the lock delay afresh.
+		this.currentType = type;
+		this.currentCol = board.getSpawnColumn(currentType);
+		this.currentRow = currentType.getSpawnRow();
+		this.currentRotation = 0;
+		this.pieceCount++;
+		this.lockNanos = 0;
+		this.lockResets = 0;
+		this.lowestRow = currentRow;
+
+		//Start the drop cooldown and go back to the game speed, so a soft drop held from the last piece doesn't carry over to this one.
+		//Every piece goes through here, whether it follows a lock, comes out of the hold slot or starts a new game.
+		this.dropAllowedTime = getTime() + rules.getDropCooldownNanos();
+		logicTimer.setCyclesPerSecond(gameSpeed);
+
+		//Checks if the spawn point is still valid
+		//If it is invalid, pause the game and show the losing screen
+		if(!board.isValidAndEmpty(currentType, currentCol, currentRow, currentRotation)) {
+			this.isGameOver = true;
+			logicTimer.setPaused(true);
+		}
+	}
+
+	//Attempts to set the rotation of the current piece to newRotation
+	//newRotation: The rotation of the new piece
+	private void rotatePiece(int newRotation) {
+		//In certain situations, we may need to move pieces when rotating them to get them past the walls, the floor or the stack.
+		//The rotation system tries its kicks in order, so the same rules can be used by anything that simulates a rotation.
+		RotationSystem rotationSystem = rules.getRotationSystem();
+		int kick = rotationSystem.findKick(board, currentType, currentCol, currentRow, currentRotation, newRotation);
+
+		//If the piece fits after one of the kicks, update the rotation and position of the piece.
+		if(kick >= 0) {
+			int from = currentRotation;
+			currentRotation = newRotation;
+			currentRow = rotationSystem.getKickedRow(board, currentType, currentRow, from, newRotation, kick);
+			currentCol = rotationSystem.getKickedColumn(board, currentType, currentCol, from, newRotation, kick);
+			onPieceMoved();
+		}
+	}
+
+	//Gets the lowest row the current piece can fall to from where it is now
+	public int getLandingRow() {
+		return board.getDropRow(currentType, currentCol, currentRow, currentRotation);
+	}
+
+	//Checks to see whether a game is being played, which means it has started, isn't over and isn't paused
+	private boolean isPlaying() {
+		return !isPaused && !isNewGame && !isGameOver;
+	}
+
+	//Gets the number of nanoseconds of game time that have passed
+	public long getTime() {
+		return tickCount * TICK_NANOS;
+	}
+
+	//Gets the timings of the rules
+	public GameRules getRules() {
+		return rules;
+	}
+
+	//Checks to see whether the current piece can still be swapped into the hold slot
+	public boolean canHold() {
+		return canHold;
+	}
+
+	//Gets the seed the engine was created with
+	public long getSeed() {
+		return seed;
+	}
+
+	//Gets the number of ticks that have been run
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	//Gets the number of pieces that have been spawned since the engine was created.
+	//This changes every time a new piece appears, so it can be used to tell pieces apart.
+	public long getPieceCount() {
+		return pieceCount;
+	}
+
+	//Gets the number of rows that were cleared by the last piece that was placed
+	public int getClearedCount() {
+		return clearedCount;
+	}
+
+	//Gets one of the rows that were cleared by the last piece that was placed, from top to bottom
+	public int getClearedRow(int index) {
+		return clearedRows[index];
+	}
+
+	//Gets the queue that actions should be sent through from other threads
+	public InputQueue getInputQueue() {
+		return inputs;
+	}
+
+	//Gets the time the last action taken from the input queue was sent, in nanoseconds
+	public long getLastInputTime() {
+		return lastInputTime;
+	}
+
+	//Gets the number of ticks on which more than one update of the game was due
+	public long getCycleBacklogTicks() {
+		return cycleBacklogTicks;
+	}
+
+	//Sets the listener that receives every action that is applied
+	public void setInputListener(InputListener inputListener) {
+		this.inputListener = inputListener;
+	}
+
+	//Sets the listener that receives the garbage sent to opponents, which puts the engine in a versus match, or null to play alone
+	public void setAttackListener(AttackListener attackListener) {
+		this.attackListener = attackListener;
+	}
+
+	//Sets the table that decides how much garbage is sent when lines are cleared
+	public void setAttackTable(AttackTable attackTable) {
+		this.attackTable = attackTable;
+	}
+
+	//Gets the queue of garbage sent by opponents. Opponents can add to it from any thread.
+	public GarbageQueue getGarbageQueue() {
+		return garbage;
+	}
+
+	//Gets the number of pieces in a row, before the last one, that cleared lines, or -1 if the last piece didn't clear any
+	public int getCombo() {
+		return combo;
+	}
+
+	//Gets the total number of lines of garbage sent to opponents
+	public long getSentLines() {
+		return sentLines;
+	}
+
+	//Gets the total number of lines of garbage added to the board
+	public long getReceivedLines() {
+		return receivedLines;
+	}
+
+	//Gets the board
+	public Board getBoard() {
+		return board;
+	}
+
+	//Checks to see whether the game is paused
+	public boolean isPaused() {
+		return isPaused;
+	}
+
+	//Checks to see whether the game is over
+	public boolean isGameOver() {
+		return isGameOver;
+	}
+
+	//Checks to see whether the players are on a new game
+	public boolean isNewGame() {
+		return isNewGame;
+	}
+
+	//Gets the current score
+	public int getScore() {
+		return score;
+	}
+
+	//Gets the current level
+	public int getLevel() {
+		return level;
+	}
+
+	//Gets the current type of piece that is used currently
+	public TileType getPieceType() {
+		return currentType;
+	}
+
+	//Gets the next type of piece that is going to be used
+	public TileType getNextPieceType() {
+		return pieces.peek(0);
+	}
+
+	//Gets the type of the piece in the hold slot, or null if the slot is empty
+	public TileType getHoldType() {
+		return holdType;
+	}
+
+	//Gets one of the upcoming pieces
+	//index: The number of pieces that will be used before it, so 0 is the next piece
+	public TileType getPreviewType(int index) {
+		return pieces.peek(index);
+	}
+
+	//Gets the number of upcoming pieces that can be seen
+	public int getPreviewCount() {
+		return pieces.getSize();
+	}
+
+	//Gets the way the order of the pieces is picked
+	public Randomizer getRandomizer() {
+		return randomizer;
+	}
+
+	//Gets the column of the current piece
+	public int getPieceCol() {
+		return currentCol;
+	}
+
+	//Gets the row of the current piece
+	public int getPieceRow() {
+		return currentRow;
+	}
+
+	//Gets the rotation of the current piece
+	public int getPieceRotation() {
+		return currentRotation;
+	}
+
+}
\ No newline at end of file
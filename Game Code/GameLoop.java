@@ -0,0 +1,165 @@
+import java.util.concurrent.locks.LockSupport;
+
+//Responsible for running the game logic and the rendering at their own fixed rates.
+//Logic ticks are scheduled on a fixed timestep: if the loop falls behind it runs extra ticks to catch up, but never more than maxCatchUpTicks in a row,
+//so a long pause (such as a garbage collection) skips time instead of causing a burst of updates.
+//Between ticks and frames the loop parks the thread until shortly before the deadline and then spins, which keeps the frame time steady.
+public class GameLoop {
+
+	//How long before a deadline the loop stops parking and starts spinning, in nanoseconds
+	private static final long SPIN_THRESHOLD = 1000000L;
+
+	//The number of nanoseconds between logic ticks
+	private final long tickNanos;
+
+	//The number of nanoseconds between rendered frames
+	private final long frameNanos;
+
+	//The largest number of logic ticks that can be run to catch up before a frame is rendered
+	private final int maxCatchUpTicks;
+
+	//Runs one logic tick
+	private final Runnable tick;
+
+	//Renders one frame
+	private final Runnable render;
+
+	//Whether the loop should keep running
+	private volatile boolean isRunning;
+
+	//The number of logic ticks that have been run
+	private volatile long tickCount;
+
+	//The number of frames that have been rendered
+	private volatile long frameCount;
+
+	//The number of extra ticks that were run to catch up
+	private volatile long catchUpTicks;
+
+	//The number of ticks that were skipped because the loop fell too far behind
+	private volatile long skippedTicks;
+
+	//The number of frames that were rendered more than a whole frame late
+	private volatile long missedFrames;
+
+	//Records how long the loop waits between ticks and frames, or null to not record
+	private LatencyHistogram waitTimes;
+
+	/**
+	 * Creates a new game loop.
+	 * tickNanos: The number of nanoseconds between logic ticks.
+	 * frameNanos: The number of nanoseconds between rendered frames.
+	 * maxCatchUpTicks: The largest number of logic ticks that can be run in a row to catch up.
+	 * tick: Runs one logic tick.
+	 * render: Renders one frame.
+	 */
+	public GameLoop(long tickNanos, long frameNanos, int maxCatchUpTicks, Runnable tick, Runnable render) {
+		if(tickNanos <= 0 || frameNanos <= 0 || maxCatchUpTicks < 1) {
+			throw new IllegalArgumentException("Tick time, frame time and catch up limit must be positive");
+		}
+		this.tickNanos = tickNanos;
+		this.frameNanos = frameNanos;
+		this.maxCatchUpTicks = maxCatchUpTicks;
+		this.tick = tick;
+		this.render = render;
+	}
+
+	//Runs the loop on the calling thread until stop() is called
+	public void run() {
+		isRunning = true;
+		long nextTick = System.nanoTime();
+		long nextFrame = nextTick;
+
+		while(isRunning) {
+			long now = System.nanoTime();
+
+			//Run every logic tick that is due, up to the catch up limit.
+			int ticks = 0;
+			while(now - nextTick >= 0 && ticks < maxCatchUpTicks) {
+				tick.run();
+				nextTick += tickNanos;
+				ticks++;
+			}
+			tickCount += ticks;
+			if(ticks > 1) {
+				catchUpTicks += ticks - 1;
+			}
+
+			//If we are still behind, skip the ticks we couldn't run instead of carrying them into the next frame.
+			if(now - nextTick >= 0) {
+				long behind = (now - nextTick) / tickNanos + 1;
+				skippedTicks += behind;
+				nextTick += behind * tickNanos;
+			}
+
+			//Render a frame if one is due. Frames are never caught up, a late frame just moves the next one back.
+			if(now - nextFrame >= 0) {
+				render.run();
+				frameCount++;
+				nextFrame += frameNanos;
+				if(now - nextFrame >= 0) {
+					nextFrame = now + frameNanos;
+					missedFrames++;
+				}
+			}
+
+			//Wait for whichever comes first.
+			long deadline = (nextTick - nextFrame < 0) ? nextTick : nextFrame;
+			if(waitTimes != null) {
+				long start = System.nanoTime();
+				waitUntil(deadline);
+				waitTimes.record(System.nanoTime() - start);
+			} else {
+				waitUntil(deadline);
+			}
+		}
+	}
+
+	//Stops the loop after the current iteration
+	public void stop() {
+		isRunning = false;
+	}
+
+	//Sets the histogram that records how long the loop waits between ticks and frames, or null to not record.
+	//Must be called before the loop is run.
+	public void setWaitTimes(LatencyHistogram waitTimes) {
+		this.waitTimes = waitTimes;
+	}
+
+	//Waits until the given time, parking the thread for most of the wait and spinning for the rest
+	private static void waitUntil(long deadline) {
+		long remaining;
+		while((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD) {
+			LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+		}
+		while(deadline - System.nanoTime() > 0) {
+			Thread.onSpinWait();
+		}
+	}
+
+	//Gets the number of logic ticks that have been run
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	//Gets the number of frames that have been rendered
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	//Gets the number of extra ticks that were run to catch up
+	public long getCatchUpTicks() {
+		return catchUpTicks;
+	}
+
+	//Gets the number of ticks that were skipped because the loop fell too far behind
+	public long getSkippedTicks() {
+		return skippedTicks;
+	}
+
+	//Gets the number of frames that were rendered more than a whole frame late
+	public long getMissedFrames() {
+		return missedFrames;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+//Collects how long each part of the game takes: the ticks, the frames the game loop renders, the panels Swing paints, the time the loop
+//spends waiting, and the time from a key press to the first frame that shows its effect. Each is kept in a LatencyHistogram.
+//The game loop and the engine count missed frames, catch-up ticks and update backlogs themselves, and the metrics read them from there.
+//Everything can be read through JMX once the metrics are registered, and drawn over the board by the BoardPanel's debug overlay.
+//The game only creates metrics when they are enabled, and everything that records into them skips the work when there are none.
+public class GameMetrics implements GameMetricsMBean {
+
+	//The name the metrics are registered with in the platform MBean server
+	public static final String OBJECT_NAME = "tetris:type=GameMetrics";
+
+	//The time each tick took, including taking the snapshot
+	private final LatencyHistogram tickTimes;
+
+	//The time each frame rendered by the game loop took to draw and present
+	private final LatencyHistogram renderTimes;
+
+	//The time each panel took to paint on the EDT
+	private final LatencyHistogram paintTimes;
+
+	//The time each wait of the game loop took
+	private final LatencyHistogram waitTimes;
+
+	//The time from each action being sent to the first frame that showed it
+	private final LatencyHistogram inputLatencies;
+
+	//The game loop being measured, or null
+	private volatile GameLoop loop;
+
+	//The engine being measured, or null
+	private volatile GameEngine engine;
+
+	//The send time of the last action whose latency was recorded, so each action is only recorded once
+	private long displayedInputTime;
+
+	//Creates new, empty metrics
+	public GameMetrics() {
+		this.tickTimes = new LatencyHistogram();
+		this.renderTimes = new LatencyHistogram();
+		this.paintTimes = new LatencyHistogram();
+		this.waitTimes = new LatencyHistogram();
+		this.inputLatencies = new LatencyHistogram();
+	}
+
+	//Registers the metrics with the platform MBean server, so they can be read through JMX.
+	//Returns false if they couldn't be registered, for example because other metrics already were.
+	public boolean register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+			return true;
+		} catch(JMException e) {
+			return false;
+		}
+	}
+
+	//Sets the game loop whose frame and catch-up counts are reported, and starts recording its waits
+	public void attach(GameLoop loop) {
+		this.loop = loop;
+		loop.setWaitTimes(waitTimes);
+	}
+
+	//Sets the engine whose update backlog is reported
+	public void attach(GameEngine engine) {
+		this.engine = engine;
+	}
+
+	//Records that a frame reached the screen. If it shows an action that hasn't been displayed before, the time since the action was sent is recorded.
+	//Must only be called by the thread that presents the frames.
+	//inputTime: The time the last action applied before the frame's snapshot was taken was sent, or 0 if there were none
+	//now: The time the frame reached the screen
+	public void recordDisplayed(long inputTime, long now) {
+		if(inputTime != 0 && inputTime != displayedInputTime) {
+			this.displayedInputTime = inputTime;
+			inputLatencies.record(now - inputTime);
+		}
+	}
+
+	//Gets the time each tick took, including taking the snapshot
+	public LatencyHistogram getTickTimes() {
+		return tickTimes;
+	}
+
+	//Gets the time each frame rendered by the game loop took to draw and present
+	public LatencyHistogram getRenderTimes() {
+		return renderTimes;
+	}
+
+	//Gets the time each panel took to paint on the EDT
+	public LatencyHistogram getPaintTimes() {
+		return paintTimes;
+	}
+
+	//Gets the time each wait of the game loop took
+	public LatencyHistogram getWaitTimes() {
+		return waitTimes;
+	}
+
+	//Gets the time from each action being sent to the first frame that showed it
+	public LatencyHistogram getInputLatencies() {
+		return inputLatencies;
+	}
+
+	@Override
+	public long getTickCount() {
+		return tickTimes.getCount();
+	}
+
+	@Override
+	public long getTickP50Micros() {
+		return micros(tickTimes, 50.0);
+	}
+
+	@Override
+	public long getTickP99Micros() {
+		return micros(tickTimes, 99.0);
+	}
+
+	@Override
+	public long getTickMaxMicros() {
+		return tickTimes.getMax() / 1000L;
+	}
+
+	@Override
+	public long getRenderCount() {
+		return renderTimes.getCount();
+	}
+
+	@Override
+	public long getRenderP50Micros() {
+		return micros(renderTimes, 50.0);
+	}
+
+	@Override
+	public long getRenderP99Micros() {
+		return micros(renderTimes, 99.0);
+	}
+
+	@Override
+	public long getRenderMaxMicros() {
+		return renderTimes.getMax() / 1000L;
+	}
+
+	@Override
+	public long getPaintCount() {
+		return paintTimes.getCount();
+	}
+
+	@Override
+	public long getPaintP50Micros() {
+		return micros(paintTimes, 50.0);
+	}
+
+	@Override
+	public long getPaintP99Micros() {
+		return micros(paintTimes, 99.0);
+	}
+
+	@Override
+	public long getPaintMaxMicros() {
+		return paintTimes.getMax() / 1000L;
+	}
+
+	@Override
+	public long getWaitCount() {
+		return waitTimes.getCount();
+	}
+
+	@Override
+	public long getWaitP50Micros() {
+		return micros(waitTimes, 50.0);
+	}
+
+	@Override
+	public long getWaitP99Micros() {
+		return micros(waitTimes, 99.0);
+	}
+
+	@Override
+	public long getWaitMaxMicros() {
+		return waitTimes.getMax() / 1000L;
+	}
+
+	@Override
+	public long getInputCount() {
+		return inputLatencies.getCount();
+	}
+
+	@Override
+	public long getInputP50Micros() {
+		return micros(inputLatencies, 50.0);
+	}
+
+	@Override
+	public long getInputP99Micros() {
+		return micros(inputLatencies, 99.0);
+	}
+
+	@Override
+	public long getInputMaxMicros() {
+		return inputLatencies.getMax() / 1000L;
+	}
+
+	@Override
+	public long getMissedFrames() {
+		GameLoop current = loop;
+		return (current != null) ? current.getMissedFrames() : 0L;
+	}
+
+	@Override
+	public long getCatchUpTicks() {
+		GameLoop current = loop;
+		return (current != null) ? current.getCatchUpTicks() : 0L;
+	}
+
+	@Override
+	public long getSkippedTicks() {
+		GameLoop current = loop;
+		return (current != null) ? current.getSkippedTicks() : 0L;
+	}
+
+	@Override
+	public long getCycleBacklogTicks() {
+		GameEngine current = engine;
+		return (current != null) ? current.getCycleBacklogTicks() : 0L;
+	}
+
+	@Override
+	public void reset() {
+		tickTimes.reset();
+		renderTimes.reset();
+		paintTimes.reset();
+		waitTimes.reset();
+		inputLatencies.reset();
+	}
+
+	//Gets a percentile of a histogram in microseconds, rounded up
+	private static long micros(LatencyHistogram histogram, double percentile) {
+		return (histogram.getValueAtPercentile(percentile) + 999L) / 1000L;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+//The management interface of GameMetrics, as seen through JMX (for example in JConsole or VisualVM).
+//Times are in microseconds. Percentiles are rounded up, so they are never lower than the true value.
+public interface GameMetricsMBean {
+
+	//The number of ticks and the time each took
+	long getTickCount();
+	long getTickP50Micros();
+	long getTickP99Micros();
+	long getTickMaxMicros();
+
+	//The number of frames rendered by the game loop and the time each took to draw and present
+	long getRenderCount();
+	long getRenderP50Micros();
+	long getRenderP99Micros();
+	long getRenderMaxMicros();
+
+	//The number of times Swing painted a panel and the time each took
+	long getPaintCount();
+	long getPaintP50Micros();
+	long getPaintP99Micros();
+	long getPaintMaxMicros();
+
+	//The number of times the game loop waited and the time each wait took
+	long getWaitCount();
+	long getWaitP50Micros();
+	long getWaitP99Micros();
+	long getWaitMaxMicros();
+
+	//The number of actions that were displayed and the time from each key press to the frame that showed it
+	long getInputCount();
+	long getInputP50Micros();
+	long getInputP99Micros();
+	long getInputMaxMicros();
+
+	//The number of frames that were rendered more than a whole frame late
+	long getMissedFrames();
+
+	//The number of extra ticks that were run to catch up
+	long getCatchUpTicks();
+
+	//The number of ticks that were skipped because the loop fell too far behind
+	long getSkippedTicks();
+
+	//The number of ticks on which more than one update of the game was due
+	long getCycleBacklogTicks();
+
+	//Clears the histograms. The counts kept by the game loop and the engine are not affected.
+	void reset();
+
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+import java.awt.BorderLayout;
+import java.awt.Graphics;
+import javax.swing.JPanel;
+
+//Responsible for painting the board and the side panel together when Swing paints the game.
+//Every paint of either panel starts here, and the newest snapshot is taken once per paint, so the board, score, hold and next pieces on the screen
+//always come from the same tick. The panels send their repaint requests here as well, so Swing merges the requests made for one snapshot into one paint.
+public class GamePanel extends JPanel {
+
+	//The exchange that the snapshots of the game are read from
+	private final SnapshotExchange frames;
+
+	//The board that is drawn on the left
+	private final BoardPanel board;
+
+	//The side panel that is drawn on the right
+	private final SidePanel side;
+
+	//Creates a new panel that lays out and paints the given board and side panel
+	//frames: The exchange that the snapshots of the game are read from
+	public GamePanel(SnapshotExchange frames, BoardPanel board, SidePanel side) {
+		super(new BorderLayout());
+		this.frames = frames;
+		this.board = board;
+		this.side = side;
+		add(board, BorderLayout.CENTER);
+		add(side, BorderLayout.EAST);
+	}
+
+	@Override
+	protected void paintChildren(Graphics g) {
+		//Take the newest snapshot of the game once, and give it to both panels. Nothing else writes to it until the next paint.
+		FrameSnapshot frame = frames.acquire();
+		board.setPaintedFrame(frame);
+		side.setPaintedFrame(frame);
+		super.paintChildren(g);
+	}
+
+	//Paints of the panels start from here, so they are always given the snapshot first.
+	@Override
+	protected boolean isPaintingOrigin() {
+		return true;
+	}
+
+}
\ No newline at end of file
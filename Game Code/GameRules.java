@@ -0,0 +1,94 @@
+//Describes the rules that decide how pieces rotate, and when they fall and lock. Timings are in nanoseconds of game time.
+//Every timing is measured in game time rather than in ticks or frames, so changing the tick rate or the frame rate doesn't change how the game plays.
+//The engine applies the rules; this only holds the numbers, so different variants of the game can be described without touching the engine.
+public final class GameRules {
+
+	//The standard timings with each rotation system, indexed by ordinal. Replays are always recorded with one of these.
+	private static final GameRules[] STANDARD_RULES = createStandardRules();
+
+	//The rules the game is normally played with. Pieces rotate the way they always have, and SRS has to be chosen.
+	public static final GameRules STANDARD = getStandard(RotationSystem.LEGACY);
+
+	//The way pieces are rotated
+	private final RotationSystem rotationSystem;
+
+	//How long a piece can rest on the stack before it locks
+	private final long lockDelayNanos;
+
+	//The number of times moving or rotating a resting piece can restart its lock delay. Reaching a new lowest row gives them all back.
+	private final int maxLockResets;
+
+	//How long after a piece appears before it can be soft dropped, so holding the drop key doesn't carry on into the next piece
+	private final long dropCooldownNanos;
+
+	//The number of rows per second a piece falls while it is being soft dropped
+	private final float softDropSpeed;
+
+	/**
+	 * Creates new rules.
+	 * rotationSystem: The way pieces are rotated.
+	 * lockDelayNanos: How long a piece can rest on the stack before it locks.
+	 * maxLockResets: The number of times moving or rotating a resting piece can restart its lock delay.
+	 * dropCooldownNanos: How long after a piece appears before it can be soft dropped.
+	 * softDropSpeed: The number of rows per second a piece falls while it is being soft dropped.
+	 */
+	public GameRules(RotationSystem rotationSystem, long lockDelayNanos, int maxLockResets, long dropCooldownNanos, float softDropSpeed) {
+		if(lockDelayNanos < 0 || maxLockResets < 0 || dropCooldownNanos < 0) {
+			throw new IllegalArgumentException("Lock delay, lock resets and drop cooldown can't be negative");
+		}
+		if(!(softDropSpeed > 0.0f)) {
+			throw new IllegalArgumentException("Soft drop speed must be positive");
+		}
+		this.rotationSystem = rotationSystem;
+		this.lockDelayNanos = lockDelayNanos;
+		this.maxLockResets = maxLockResets;
+		this.dropCooldownNanos = dropCooldownNanos;
+		this.softDropSpeed = softDropSpeed;
+	}
+
+	//Gets the standard timings with the given rotation system
+	public static GameRules getStandard(RotationSystem rotationSystem) {
+		return STANDARD_RULES[rotationSystem.ordinal()];
+	}
+
+	//Checks to see whether these are the standard timings with one of the rotation systems
+	public boolean isStandard() {
+		return this == getStandard(rotationSystem);
+	}
+
+	//Gets the way pieces are rotated
+	public RotationSystem getRotationSystem() {
+		return rotationSystem;
+	}
+
+	//Gets how long a piece can rest on the stack before it locks, in nanoseconds
+	public long getLockDelayNanos() {
+		return lockDelayNanos;
+	}
+
+	//Gets the number of times moving or rotating a resting piece can restart its lock delay
+	public int getMaxLockResets() {
+		return maxLockResets;
+	}
+
+	//Gets how long after a piece appears before it can be soft dropped, in nanoseconds
+	public long getDropCooldownNanos() {
+		return dropCooldownNanos;
+	}
+
+	//Gets the number of rows per second a piece falls while it is being soft dropped
+	public float getSoftDropSpeed() {
+		return softDropSpeed;
+	}
+
+	//Creates the standard timings with every rotation system
+	private static GameRules[] createStandardRules() {
+		RotationSystem[] systems = RotationSystem.values();
+		GameRules[] rules = new GameRules[systems.length];
+		for(int i = 0; i < systems.length; i++) {
+			rules[i] = new GameRules(systems[i], 500000000L, 15, 500000000L, 25.0f);
+		}
+		return rules;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+import java.util.concurrent.atomic.LongAdder;
+
+//Responsible for a single game hosted by the SessionManager.
+//Input can be sent from any thread, but the engine itself is only ever touched by the thread that ticks the session.
+//A session can be part of a versus match, where the garbage it sends is routed to the other sessions in the match.
+public class GameSession {
+
+	//The id of the session
+	private final long id;
+
+	//The engine that runs the rules of the game
+	private final GameEngine engine;
+
+	//The number of actions that were thrown away because the queue was full
+	private final LongAdder droppedInputs;
+
+	//The session's place in its versus match, or null if it is played alone
+	private final AttackRouter.Member member;
+
+	//Whether the session has been closed, either by the manager or because its engine failed
+	private volatile boolean isClosed;
+
+	//The error that stopped the session, if any
+	private volatile Throwable failure;
+
+	//Creates a new session with its own engine
+	GameSession(long id, long seed, Randomizer randomizer) {
+		this(id, seed, randomizer, null, 0);
+	}
+
+	//Creates a new session with its own engine, in a versus match if there is a router
+	GameSession(long id, long seed, Randomizer randomizer, AttackRouter router, long matchId) {
+		this.id = id;
+		this.engine = new GameEngine(seed, randomizer, GameEngine.DEFAULT_PREVIEW_COUNT);
+		this.droppedInputs = new LongAdder();
+		this.member = (router != null) ? router.join(matchId, engine.getGarbageQueue()) : null;
+		if(member != null) {
+			engine.setAttackListener(member);
+		}
+	}
+
+	//Queues an action for the next tick.
+	//Returns false if the session is closed or too many actions are already waiting.
+	public boolean offer(GameAction action) {
+		if(isClosed) {
+			return false;
+		}
+		if(!engine.getInputQueue().offer(action, System.nanoTime())) {
+			droppedInputs.increment();
+			return false;
+		}
+		return true;
+	}
+
+	//Applies the waiting actions and runs one tick of the game.
+	//Returns the number of actions that were applied.
+	int tick() {
+		int applied = engine.tick();
+
+		//Only boards that are in a game are sent garbage.
+		if(member != null) {
+			boolean isPlaying = !engine.isNewGame() && !engine.isGameOver();
+			if(member.isPlaying() != isPlaying) {
+				member.setPlaying(isPlaying);
+			}
+		}
+		return applied;
+	}
+
+	//Stops the session because its engine threw an error
+	void fail(Throwable error) {
+		this.failure = error;
+		close();
+	}
+
+	//Stops the session, and takes it out of its versus match
+	void close() {
+		this.isClosed = true;
+		if(member != null) {
+			member.leave();
+		}
+	}
+
+	//Gets the id of the session
+	public long getId() {
+		return id;
+	}
+
+	//Gets the engine of the session. It should only be read from the thread that ticks the session, or once the session is closed.
+	public GameEngine getEngine() {
+		return engine;
+	}
+
+	//Gets the id of the versus match the session is in, or -1 if it is played alone
+	public long getMatchId() {
+		return (member != null) ? member.getMatchId() : -1;
+	}
+
+	//Gets the number of actions that were thrown away because the queue was full
+	public long getDroppedInputs() {
+		return droppedInputs.sum();
+	}
+
+	//Checks to see whether the session has been closed
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	//Gets the error that stopped the session, or null if it did not fail
+	public Throwable getFailure() {
+		return failure;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+//A bounded, lock-free queue of the attacks waiting to be added to the bottom of one board as garbage.
+//Any number of threads can send attacks, but only one thread (the one that ticks the board's engine) may cancel them or take them out.
+//Like the InputQueue, its slots are handed out by a RingSequencer, so no locks are needed and nothing is allocated.
+//The lines of one attack are kept together, so they share a hole when they are added to the board.
+public class GarbageQueue {
+
+	//The number of lines of each attack, indexed by slot
+	private final int[] attacks;
+
+	//Hands out the slots to the senders and the receiver
+	private final RingSequencer ring;
+
+	//The lines left of the oldest attack after part of it was cancelled, or 0 if no attack is partly cancelled. Only used by the receiving thread.
+	private int partialLines;
+
+	//The total number of lines waiting, which can be read from any thread
+	private final AtomicInteger pendingLines;
+
+	//Creates a new queue
+	//capacity: The number of attacks the queue can hold, rounded up to a power of two
+	public GarbageQueue(int capacity) {
+		this.ring = new RingSequencer(capacity);
+		this.attacks = new int[ring.getCapacity()];
+		this.pendingLines = new AtomicInteger();
+	}
+
+	//Adds an attack to the queue. Can be called from any thread.
+	//lines: The number of lines of garbage, at least one
+	//Returns false if the queue is full.
+	public boolean offer(int lines) {
+		if(lines < 1) {
+			throw new IllegalArgumentException("an attack must be at least one line");
+		}
+		long position = ring.claim();
+		if(position < 0) {
+			return false;
+		}
+
+		attacks[ring.getSlot(position)] = lines;
+		pendingLines.addAndGet(lines);
+
+		//Let the receiver know the slot has been written.
+		ring.publish(position);
+		return true;
+	}
+
+	//Takes the oldest attack, or what is left of it, out of the queue. Must only be called by the receiving thread.
+	//Returns the number of lines, or 0 if the queue is empty.
+	public int poll() {
+		int lines = (partialLines > 0) ? partialLines : take();
+		this.partialLines = 0;
+		if(lines > 0) {
+			pendingLines.addAndGet(-lines);
+		}
+		return lines;
+	}
+
+	//Cancels the oldest waiting lines against an attack the board is about to send. Must only be called by the receiving thread.
+	//lines: The number of lines of the outgoing attack
+	//Returns the number of lines of the outgoing attack that are left once every waiting line it could cancel has been cancelled.
+	public int cancel(int lines) {
+		while(lines > 0) {
+			if(partialLines == 0) {
+				this.partialLines = take();
+				if(partialLines == 0) {
+					break;
+				}
+			}
+			int cancelled = Math.min(lines, partialLines);
+			this.partialLines -= cancelled;
+			lines -= cancelled;
+			pendingLines.addAndGet(-cancelled);
+		}
+		return lines;
+	}
+
+	//Throws away every waiting attack. Must only be called by the receiving thread.
+	public void clear() {
+		int lines;
+		do {
+			lines = poll();
+		} while(lines > 0);
+	}
+
+	//Gets the total number of lines waiting. Can be called from any thread.
+	public int getPendingLines() {
+		return pendingLines.get();
+	}
+
+	//Gets the number of attacks the queue can hold
+	public int getCapacity() {
+		return attacks.length;
+	}
+
+	//Takes the next whole attack out of its slot, or returns 0 if no attack has been written to it yet
+	private int take() {
+		int slot = ring.peek();
+		if(slot < 0) {
+			return 0;
+		}
+
+		int lines = attacks[slot];
+
+		//Hand the slot back to the senders for the next time around.
+		ring.release();
+		return lines;
+	}
+
+}
\ No newline at end of file
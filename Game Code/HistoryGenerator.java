@@ -0,0 +1,72 @@
+import java.util.SplittableRandom;
+
+//Picks pieces at random, but tries again a few times if the piece is one of the last few that were picked.
+//This makes repeats and droughts rarer than picking uniformly, while keeping the sequence less predictable than a bag.
+public class HistoryGenerator implements PieceGenerator {
+
+	//The number of recent pieces that are remembered by default
+	public static final int DEFAULT_HISTORY_SIZE = 4;
+
+	//The number of picks made by default before a recent piece is accepted anyway
+	public static final int DEFAULT_ROLLS = 6;
+
+	//The number of piece types
+	private static final int TYPE_COUNT = TileType.values().length;
+
+	//The random number generator
+	private final SplittableRandom random;
+
+	//The ordinals of the most recent pieces, as a ring
+	private final byte[] history;
+
+	//The number of picks made before a recent piece is accepted anyway
+	private final int rolls;
+
+	//The index in the history that the next piece will be written to
+	private int head;
+
+	//Creates a new generator with the default history size and number of rolls
+	public HistoryGenerator(SplittableRandom random) {
+		this(random, DEFAULT_HISTORY_SIZE, DEFAULT_ROLLS);
+	}
+
+	//Creates a new generator
+	//historySize: The number of recent pieces to remember
+	//rolls: The number of picks made before a recent piece is accepted anyway
+	public HistoryGenerator(SplittableRandom random, int historySize, int rolls) {
+		if(historySize < 1 || rolls < 1) {
+			throw new IllegalArgumentException("historySize and rolls must be at least 1");
+		}
+		this.random = random;
+		this.rolls = rolls;
+		this.history = new byte[historySize];
+
+		//Start with a history of S and Z pieces, so the first pieces are unlikely to be the awkward ones.
+		for(int i = 0; i < historySize; i++) {
+			history[i] = (byte)(((i + 1) & 2) == 0 ? TileType.TypeZ.ordinal() : TileType.TypeS.ordinal());
+		}
+	}
+
+	@Override
+	public int next() {
+		int type = random.nextInt(TYPE_COUNT);
+		for(int roll = 1; roll < rolls && isRecent(type); roll++) {
+			type = random.nextInt(TYPE_COUNT);
+		}
+
+		history[head] = (byte)type;
+		this.head = (head + 1 == history.length) ? 0 : head + 1;
+		return type;
+	}
+
+	//Checks to see whether a piece is in the history
+	private boolean isRecent(int type) {
+		for(int i = 0; i < history.length; i++) {
+			if(history[i] == type) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
\ No newline at end of file
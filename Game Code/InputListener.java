@@ -0,0 +1,12 @@
+//Receives every action the engine applies, in the order it applies them.
+//This can be used to record a game so it can be played back later.
+public interface InputListener {
+
+	/**
+	 * Called when the engine applies an action.
+	 * tick: The number of ticks that had been run when the action was applied.
+	 * action: The action.
+	 */
+	void onInput(long tick, GameAction action);
+
+}
\ No newline at end of file
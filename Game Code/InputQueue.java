@@ -0,0 +1,72 @@
+//A bounded, lock-free queue of player actions, each stamped with the time it was sent.
+//Any number of threads can send actions, but only one thread (the one that runs the game) may take them out.
+//The slots are handed out by a RingSequencer, so no locks are needed and nothing is allocated.
+public class InputQueue {
+
+	//The actions, indexed by slot
+	private final GameAction[] actions;
+
+	//The times the actions were sent, in nanoseconds, indexed by slot
+	private final long[] times;
+
+	//Hands out the slots to the senders and the receiver
+	private final RingSequencer ring;
+
+	//The time the last action taken out of the queue was sent
+	private long polledTime;
+
+	//Creates a new queue
+	//capacity: The number of actions the queue can hold, rounded up to a power of two
+	public InputQueue(int capacity) {
+		this.ring = new RingSequencer(capacity);
+		this.actions = new GameAction[ring.getCapacity()];
+		this.times = new long[ring.getCapacity()];
+	}
+
+	//Adds an action to the queue. Can be called from any thread.
+	//time: The time the action was sent, in nanoseconds
+	//Returns false if the queue is full.
+	public boolean offer(GameAction action, long time) {
+		long position = ring.claim();
+		if(position < 0) {
+			return false;
+		}
+
+		int slot = ring.getSlot(position);
+		actions[slot] = action;
+		times[slot] = time;
+
+		//Let the receiver know the slot has been written.
+		ring.publish(position);
+		return true;
+	}
+
+	//Takes the oldest action out of the queue. Must only be called by the receiving thread.
+	//The time the action was sent can be read afterwards with getPolledTime().
+	//Returns null if the queue is empty.
+	public GameAction poll() {
+		int slot = ring.peek();
+		if(slot < 0) {
+			return null;
+		}
+
+		GameAction action = actions[slot];
+		this.polledTime = times[slot];
+		actions[slot] = null;
+
+		//Hand the slot back to the senders for the next time around.
+		ring.release();
+		return action;
+	}
+
+	//Gets the time the last action taken out of the queue was sent, in nanoseconds
+	public long getPolledTime() {
+		return polledTime;
+	}
+
+	//Gets the number of actions the queue can hold
+	public int getCapacity() {
+		return actions.length;
+	}
+
+}
\ No newline at end of file
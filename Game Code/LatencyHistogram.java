@@ -0,0 +1,120 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Records how long something took, in nanoseconds, so that percentiles can be read back cheaply at any time.
+//Values are counted in buckets that grow with the value (the same idea as an HDR histogram): values below 32 get a bucket each, and above that
+//every power of two is split into 32 buckets, so any value is known to within about 3%. Recording a value never allocates and never locks.
+public class LatencyHistogram {
+
+	//The number of bits used to split each power of two into buckets
+	private static final int SUB_BUCKET_BITS = 5;
+
+	//The number of buckets in each power of two
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	//The highest power of two that has its own buckets. Larger values (over half an hour) are counted in the last bucket.
+	private static final int MAX_EXPONENT = 40;
+
+	//The total number of buckets
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	//The number of values in each bucket
+	private final AtomicLongArray counts;
+
+	//The number of values recorded
+	private final AtomicLong count;
+
+	//The sum of the values recorded
+	private final AtomicLong sum;
+
+	//The largest value recorded
+	private final AtomicLong max;
+
+	//Creates a new, empty histogram
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(BUCKET_COUNT);
+		this.count = new AtomicLong();
+		this.sum = new AtomicLong();
+		this.max = new AtomicLong();
+	}
+
+	//Records a value. Negative values are counted as zero.
+	public void record(long nanos) {
+		long value = Math.max(0L, nanos);
+		counts.getAndIncrement(getBucket(value));
+		count.getAndIncrement();
+		sum.getAndAdd(value);
+		long largest;
+		while(value > (largest = max.get()) && !max.compareAndSet(largest, value)) {
+			//Another thread recorded a value at the same time, so try again.
+		}
+	}
+
+	//Gets the number of values recorded
+	public long getCount() {
+		return count.get();
+	}
+
+	//Gets the largest value recorded
+	public long getMax() {
+		return max.get();
+	}
+
+	//Gets the average of the values recorded
+	public double getMean() {
+		long n = count.get();
+		return (n == 0) ? 0.0 : (double)sum.get() / n;
+	}
+
+	//Gets the value that the given percentage of the values are at or below, rounded up to the top of its bucket
+	//percentile: From 0 to 100
+	public long getValueAtPercentile(double percentile) {
+		long n = count.get();
+		if(n == 0) {
+			return 0;
+		}
+		long target = Math.max(1L, (long)Math.ceil(n * percentile / 100.0));
+		long seen = 0;
+		for(int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			seen += counts.get(bucket);
+			if(seen >= target) {
+				return Math.min(getBucketTop(bucket), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	//Removes every value
+	public void reset() {
+		for(int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			counts.set(bucket, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	//Gets the bucket that a value is counted in
+	private static int getBucket(long value) {
+		if(value < SUB_BUCKET_COUNT) {
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if(exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	//Gets the largest value that is counted in a bucket
+	private static long getBucketTop(int bucket) {
+		if(bucket < SUB_BUCKET_COUNT) {
+			return bucket;
+		}
+		int exponent = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+		int subBucket = (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+		return ((long)(SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+//Picks the order that pieces are spawned in.
+//Generators return the ordinal of each piece instead of the piece itself, so they can be stored in primitive arrays, and they must not create
+//any objects when picking a piece. A generator's sequence only depends on the random number generator it was created with.
+public interface PieceGenerator {
+
+	//Picks the next piece and returns its ordinal in TileType.values()
+	int next();
+
+}
\ No newline at end of file
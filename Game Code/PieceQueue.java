@@ -0,0 +1,54 @@
+//Holds the pieces that are coming up next, so the game can show a preview of more than one piece.
+//The queue is always full: taking a piece off the front asks the generator for a new piece at the back. The pieces are kept as ordinals
+//in a ring of bytes, so taking a piece never creates any objects.
+public class PieceQueue {
+
+	//The piece types, indexed by ordinal
+	private static final TileType[] TYPES = TileType.values();
+
+	//The generator that picks the pieces
+	private final PieceGenerator generator;
+
+	//The ordinals of the upcoming pieces, as a ring
+	private final byte[] ring;
+
+	//The index in the ring of the next piece
+	private int head;
+
+	//Creates a new queue and fills it from the generator
+	//size: The number of upcoming pieces that can be seen
+	public PieceQueue(PieceGenerator generator, int size) {
+		if(size < 1) {
+			throw new IllegalArgumentException("size must be at least 1");
+		}
+		this.generator = generator;
+		this.ring = new byte[size];
+		for(int i = 0; i < size; i++) {
+			ring[i] = (byte)generator.next();
+		}
+	}
+
+	//Takes the next piece off the front of the queue, and adds a new piece to the back
+	public TileType next() {
+		TileType type = TYPES[ring[head]];
+		ring[head] = (byte)generator.next();
+		this.head = (head + 1 == ring.length) ? 0 : head + 1;
+		return type;
+	}
+
+	//Gets one of the upcoming pieces without taking it
+	//index: The number of pieces ahead of it in the queue, so 0 is the next piece
+	public TileType peek(int index) {
+		int slot = head + index;
+		if(slot >= ring.length) {
+			slot -= ring.length;
+		}
+		return TYPES[ring[slot]];
+	}
+
+	//Gets the number of upcoming pieces that can be seen
+	public int getSize() {
+		return ring.length;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,346 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+//Responsible for finding the best place to put the current piece, looking one piece ahead.
+//Every placement a player could reach is tried: the piece is rotated from where it is using the engine's rotation system, moved across
+//one column at a time and then dropped. The current piece's placements are scored in parallel on a ForkJoinPool, and each one is scored by
+//trying every placement of the next piece on top of it and keeping the best board. Boards are scored with a weighted sum of their holes,
+//bumpiness, aggregate height and cleared lines.
+//Every worker thread has its own scratch boards and lists, so no objects are created while the placements are being scored.
+//Different placements often lead to the same board, so the score of each board the next piece is tried on is kept in a TranspositionTable
+//shared by every thread.
+public class PlacementSearch {
+
+	//The weight of the total height of the columns
+	private static final double HEIGHT_WEIGHT = -0.510066;
+
+	//The weight of the number of lines cleared
+	private static final double LINES_WEIGHT = 0.760666;
+
+	//The weight of the number of empty tiles with a filled tile somewhere above them
+	private static final double HOLES_WEIGHT = -0.35663;
+
+	//The weight of the total difference in height between neighbouring columns
+	private static final double BUMPINESS_WEIGHT = -0.184483;
+
+	//The score given to a placement that leaves no room for the next piece
+	private static final double LOSS_SCORE = -1.0e9;
+
+	//The largest number of placements a piece can have: one for each rotation and column
+	private static final int MAX_PLACEMENTS = 4 * BoardConfig.MAX_COL_COUNT;
+
+	//The number of scores kept in the default transposition table
+	private static final int TABLE_SIZE = Integer.getInteger("tetris.searchTableSize", 1 << 16);
+
+	//The number of placements of the current piece that a single task scores without splitting
+	private static final int SPLIT_THRESHOLD = 2;
+
+	//The pool that scores the placements
+	private final ForkJoinPool pool;
+
+	//The scratch space of each thread that scores placements
+	private final ThreadLocal<Scratch> scratch;
+
+	//The scores of boards that have already been searched, or null
+	private final TranspositionTable table;
+
+	//The total number of placements that have been scored
+	private final LongAdder placementsSearched;
+
+	//The board being searched
+	private Board board;
+
+	//The next type of piece, or null if it isn't known
+	private TileType nextType;
+
+	//The way the pieces are rotated
+	private RotationSystem rotationSystem;
+
+	//The placements of the current piece
+	private final Placements roots;
+
+	//The score of each placement of the current piece
+	private final double[] scores;
+
+	//The rotation of the best placement found by the last search
+	private int bestRotation;
+
+	//The column of the best placement found by the last search
+	private int bestCol;
+
+	//The row of the best placement found by the last search
+	private int bestRow;
+
+	//The score of the best placement found by the last search
+	private double bestScore;
+
+	//Creates a new search that runs on the common pool
+	public PlacementSearch() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	//Creates a new search that runs on the given pool
+	public PlacementSearch(ForkJoinPool pool) {
+		this(pool, new TranspositionTable(TABLE_SIZE));
+	}
+
+	//Creates a new search that runs on the given pool and keeps its scores in the given table
+	//table: The table, which may be shared with other searches, or null to score every board
+	public PlacementSearch(ForkJoinPool pool, TranspositionTable table) {
+		this.pool = pool;
+		this.table = table;
+		this.scratch = ThreadLocal.withInitial(Scratch::new);
+		this.placementsSearched = new LongAdder();
+		this.roots = new Placements();
+		this.scores = new double[MAX_PLACEMENTS];
+	}
+
+	/**
+	 * Finds the best placement of a piece, which can then be read with getBestRotation(), getBestCol() and getBestRow().
+	 * A search must not be used by more than one thread at a time.
+	 * board: The board to place the piece on. It must not be changed until the search is done.
+	 * type: The type of the piece.
+	 * x, y, rotation: Where the piece is now.
+	 * nextType: The type of the piece after it, or null to only look at the current piece.
+	 * rotationSystem: The way the pieces are rotated, which should be the same as in the game being played.
+	 * Returns false if the piece can't be placed anywhere.
+	 */
+	public boolean search(Board board, TileType type, int x, int y, int rotation, TileType nextType, RotationSystem rotationSystem) {
+		this.board = board;
+		this.nextType = nextType;
+		this.rotationSystem = rotationSystem;
+
+		int count = enumerate(board, type, x, y, rotation, rotationSystem, roots);
+		if(count == 0) {
+			return false;
+		}
+		if(table != null) {
+			table.nextGeneration();
+		}
+
+		//Score every placement of the current piece in parallel, then pick the best one here.
+		pool.invoke(new ScoreTask(type, 0, count));
+
+		int best = 0;
+		for(int i = 1; i < count; i++) {
+			if(scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		this.bestRotation = roots.rotations[best];
+		this.bestCol = roots.cols[best];
+		this.bestRow = roots.rows[best];
+		this.bestScore = scores[best];
+		this.board = null;
+		return true;
+	}
+
+	//Gets the rotation of the best placement found by the last search
+	public int getBestRotation() {
+		return bestRotation;
+	}
+
+	//Gets the column of the best placement found by the last search
+	public int getBestCol() {
+		return bestCol;
+	}
+
+	//Gets the row of the best placement found by the last search
+	public int getBestRow() {
+		return bestRow;
+	}
+
+	//Gets the score of the best placement found by the last search
+	public double getBestScore() {
+		return bestScore;
+	}
+
+	//Gets the table the scores are kept in, or null
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	//Gets the total number of placements that have been scored by every search
+	public long getPlacementsSearched() {
+		return placementsSearched.sum();
+	}
+
+	//Scores one placement of the current piece by placing it on a scratch board and trying every placement of the next piece on top of it
+	private double scorePlacement(TileType type, int index, Scratch space) {
+		Board first = space.first;
+		first.copyFrom(board);
+		first.addPiece(type, roots.cols[index], roots.rows[index], roots.rotations[index]);
+		int lines = first.checkLines();
+
+		if(nextType == null) {
+			placementsSearched.increment();
+			return evaluate(first, lines);
+		}
+
+		//The best score of the next piece on this board doesn't depend on how the board was reached, so it can be shared.
+		//The lines cleared by the current piece are added on afterwards.
+		long key = 0;
+		if(table != null) {
+			key = TranspositionTable.getKey(first, nextType, null, rotationSystem);
+			double cached = table.probe(key);
+			if(!Double.isNaN(cached)) {
+				return cached + LINES_WEIGHT * lines;
+			}
+		}
+
+		Placements next = space.placements;
+		int count = enumerate(first, nextType, first.getSpawnColumn(nextType), nextType.getSpawnRow(), 0, rotationSystem, next);
+		placementsSearched.add(count + 1);
+
+		double best = LOSS_SCORE;
+		if(count > 0) {
+			best = Double.NEGATIVE_INFINITY;
+			Board second = space.second;
+			for(int i = 0; i < count; i++) {
+				second.copyFrom(first);
+				second.addPiece(nextType, next.cols[i], next.rows[i], next.rotations[i]);
+				int cleared = second.checkLines();
+				best = Math.max(best, evaluate(second, cleared));
+			}
+		}
+
+		if(table != null) {
+			table.store(key, best);
+		}
+		return best + LINES_WEIGHT * lines;
+	}
+
+	/**
+	 * Finds every placement a piece can reach from where it is and writes them into the list.
+	 * For each number of clockwise rotations, the piece is rotated one step at a time with the rotation system's kicks, then moved across one column
+	 * at a time in both directions. Each column it can reach is one placement, at the row the piece would drop to.
+	 * Returns the number of placements found.
+	 */
+	private static int enumerate(Board board, TileType type, int x, int y, int rotation, RotationSystem rotationSystem, Placements placements) {
+		int count = 0;
+		if(!board.isValidAndEmpty(type, x, y, rotation)) {
+			return 0;
+		}
+
+		for(int turn = 0; turn < 4; turn++) {
+			if(turn > 0) {
+				//Rotate once more, the same way the engine would. If the rotation is blocked the piece can't turn any further.
+				int newRotation = (rotation == 3) ? 0 : rotation + 1;
+				int kick = rotationSystem.findKick(board, type, x, y, rotation, newRotation);
+				if(kick < 0) {
+					break;
+				}
+				x = rotationSystem.getKickedColumn(board, type, x, rotation, newRotation, kick);
+				y = rotationSystem.getKickedRow(board, type, y, rotation, newRotation, kick);
+				rotation = newRotation;
+			}
+
+			//The column the piece is in, then every column it can slide to on the left, then every column on the right.
+			count = add(placements, count, board, type, x, y, rotation);
+			for(int col = x - 1; board.isValidAndEmpty(type, col, y, rotation); col--) {
+				count = add(placements, count, board, type, col, y, rotation);
+			}
+			for(int col = x + 1; board.isValidAndEmpty(type, col, y, rotation); col++) {
+				count = add(placements, count, board, type, col, y, rotation);
+			}
+		}
+		return count;
+	}
+
+	//Adds a placement to the list at the row the piece drops to, and returns the new number of placements
+	private static int add(Placements placements, int count, Board board, TileType type, int x, int y, int rotation) {
+		placements.rotations[count] = rotation;
+		placements.cols[count] = x;
+		placements.rows[count] = board.getDropRow(type, x, y, rotation);
+		return count + 1;
+	}
+
+	/**
+	 * Scores a board. Higher scores are better.
+	 * The heights come straight from the board's skyline. Every tile below a column's top that isn't occupied is a hole, so the number of
+	 * holes is the total height of the columns minus the number of occupied tiles.
+	 * lines: The number of lines that were cleared to reach this board.
+	 */
+	private static double evaluate(Board board, int lines) {
+		int occupied = 0;
+		for(int row = 0; row < board.getRowCount(); row++) {
+			occupied += Long.bitCount(board.getRow(row));
+		}
+
+		int aggregateHeight = board.getColumnHeight(0);
+		int bumpiness = 0;
+		for(int col = 1; col < board.getColCount(); col++) {
+			int height = board.getColumnHeight(col);
+			aggregateHeight += height;
+			bumpiness += Math.abs(height - board.getColumnHeight(col - 1));
+		}
+		int holes = aggregateHeight - occupied;
+
+		return HEIGHT_WEIGHT * aggregateHeight + LINES_WEIGHT * lines + HOLES_WEIGHT * holes + BUMPINESS_WEIGHT * bumpiness;
+	}
+
+	//Scores a range of the current piece's placements, splitting it in half until it is small enough to score on one thread
+	private class ScoreTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		//The type of the current piece
+		private final TileType type;
+
+		//The first placement in the range
+		private final int start;
+
+		//The placement after the last one in the range
+		private final int end;
+
+		private ScoreTask(TileType type, int start, int end) {
+			this.type = type;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if(end - start <= SPLIT_THRESHOLD) {
+				Scratch space = scratch.get();
+				for(int i = start; i < end; i++) {
+					scores[i] = scorePlacement(type, i, space);
+				}
+				return;
+			}
+			int middle = (start + end) >>> 1;
+			invokeAll(new ScoreTask(type, start, middle), new ScoreTask(type, middle, end));
+		}
+
+	}
+
+	//A list of placements, kept as parallel arrays so it can be reused without creating any objects
+	private static class Placements {
+
+		//The rotation of each placement
+		private final int[] rotations = new int[MAX_PLACEMENTS];
+
+		//The column of each placement
+		private final int[] cols = new int[MAX_PLACEMENTS];
+
+		//The row of each placement
+		private final int[] rows = new int[MAX_PLACEMENTS];
+
+	}
+
+	//The space a single thread uses to score placements
+	private static class Scratch {
+
+		//The board with the current piece placed on it
+		private final Board first = new Board();
+
+		//The board with the next piece placed on it as well
+		private final Board second = new Board();
+
+		//The placements of the next piece
+		private final Placements placements = new Placements();
+
+	}
+
+}
\ No newline at end of file
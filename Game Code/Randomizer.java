@@ -0,0 +1,28 @@
+import java.util.SplittableRandom;
+
+//The ways that the order of the pieces can be picked.
+//The randomizer is part of the rules of a game, so it is saved in replays along with the seed.
+public enum Randomizer {
+
+	//Every piece is picked independently (see UniformGenerator)
+	UNIFORM,
+
+	//Pieces are dealt from a shuffled bag of seven (see BagGenerator)
+	BAG,
+
+	//Recent pieces are avoided (see HistoryGenerator)
+	HISTORY;
+
+	//Creates a generator of this kind
+	public PieceGenerator create(SplittableRandom random) {
+		switch(this) {
+			case BAG:
+				return new BagGenerator(random);
+			case HISTORY:
+				return new HistoryGenerator(random);
+			default:
+				return new UniformGenerator(random);
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Describes the layout of a replay file, which holds everything needed to play a game again from the start.
+ * Because the engine only depends on its seed and the actions it was given, a replay only has to store those.
+ *
+ * Header:
+ *   int     MAGIC
+ *   byte    FORMAT_VERSION
+ *   int     The ruleset version of the engine that recorded it (GameEngine.RULESET_VERSION)
+ *   long    The seed of the engine
+ *   byte    The ordinal of the engine's Randomizer
+ *   byte    The ordinal of the engine's RotationSystem (the rest of its rules are always the standard timings)
+ *   byte    The number of columns on the board
+ *   short   The number of visible rows on the board
+ * Inputs, repeated for every action:
+ *   byte    The ordinal of the GameAction
+ *   varint  The number of ticks since the previous action (or since the engine was created, for the first one)
+ * End:
+ *   byte    END_OF_INPUT
+ * Footer (FOOTER_SIZE bytes, so it can be read straight from the end of the file):
+ *   long    The tick count when the recording ended
+ *   int     The score when the recording ended
+ *   int     The level when the recording ended
+ *   long    The hash of the board when the recording ended
+ *
+ * Numbers are big-endian. A varint is stored 7 bits at a time, lowest first, with the top bit of each byte set if more bytes follow.
+ */
+public final class ReplayFormat {
+
+	//The first four bytes of every replay ("TETR")
+	public static final int MAGIC = 0x54455452;
+
+	//The version of the file layout
+	public static final byte FORMAT_VERSION = 4;
+
+	//The size of the header in bytes
+	public static final int HEADER_SIZE = 4 + 1 + 4 + 8 + 1 + 1 + 1 + 2;
+
+	//The byte that marks the end of the inputs
+	public static final byte END_OF_INPUT = (byte)0xFF;
+
+	//The size of the footer in bytes
+	public static final int FOOTER_SIZE = 8 + 4 + 4 + 8;
+
+	//The largest tick count a replay can end on, which is a day of game time. Longer replays are rejected before they are played,
+	//so a damaged or hostile file can't keep a player busy for ever.
+	public static final long MAX_TICK_COUNT = GameEngine.TICK_RATE * 60L * 60L * 24L;
+
+	private ReplayFormat() {
+	}
+
+	//Writes a varint into an array, and returns the position after it
+	public static int putVarLong(byte[] bytes, int position, long value) {
+		while((value & ~0x7FL) != 0) {
+			bytes[position++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[position++] = (byte)value;
+		return position;
+	}
+
+	//Reads a varint from the buffer's position
+	public static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long)(b & 0x7F) << shift;
+			if(b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("varint is too long");
+	}
+
+}
\ No newline at end of file
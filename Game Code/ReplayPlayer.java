@@ -0,0 +1,195 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+//Plays a replay (see ReplayFormat) back through a new engine, as fast as the rules can run and without drawing anything.
+//Files are memory-mapped, so the inputs are decoded straight from the page cache without being copied into the heap first.
+//Once the replay has been played, the final state of the engine can be compared with the state that was recorded.
+public class ReplayPlayer {
+
+	//The actions, indexed by ordinal
+	private static final GameAction[] ACTIONS = GameAction.values();
+
+	//The replay, positioned at the start of the header
+	private final ByteBuffer buffer;
+
+	//The ruleset version the replay was recorded with
+	private final int rulesetVersion;
+
+	//The seed of the engine that was recorded
+	private final long seed;
+
+	//The way the order of the pieces was picked
+	private final Randomizer randomizer;
+
+	//The way the pieces were rotated
+	private final RotationSystem rotationSystem;
+
+	//The size of the board
+	private final BoardConfig boardConfig;
+
+	//The tick count when the recording ended
+	private final long finalTick;
+
+	//The score when the recording ended
+	private final int finalScore;
+
+	//The level when the recording ended
+	private final int finalLevel;
+
+	//The hash of the board when the recording ended
+	private final long finalBoardHash;
+
+	//Creates a player for a replay held in a buffer, from the buffer's position to its limit
+	public ReplayPlayer(ByteBuffer replay) {
+		this.buffer = replay.slice();
+		if(buffer.remaining() < ReplayFormat.HEADER_SIZE + 1 + ReplayFormat.FOOTER_SIZE) {
+			throw new IllegalArgumentException("replay is too short");
+		}
+		if(buffer.getInt(0) != ReplayFormat.MAGIC) {
+			throw new IllegalArgumentException("not a replay");
+		}
+		if(buffer.get(4) != ReplayFormat.FORMAT_VERSION) {
+			throw new IllegalArgumentException("unsupported replay format " + buffer.get(4));
+		}
+		this.rulesetVersion = buffer.getInt(5);
+		this.seed = buffer.getLong(9);
+		int randomizer = buffer.get(17);
+		if(randomizer < 0 || randomizer >= Randomizer.values().length) {
+			throw new IllegalArgumentException("unknown randomizer " + randomizer);
+		}
+		this.randomizer = Randomizer.values()[randomizer];
+		int rotationSystem = buffer.get(18);
+		if(rotationSystem < 0 || rotationSystem >= RotationSystem.values().length) {
+			throw new IllegalArgumentException("unknown rotation system " + rotationSystem);
+		}
+		this.rotationSystem = RotationSystem.values()[rotationSystem];
+		this.boardConfig = new BoardConfig(buffer.get(19), buffer.getShort(20));
+
+		int footer = buffer.limit() - ReplayFormat.FOOTER_SIZE;
+		if(buffer.get(footer - 1) != ReplayFormat.END_OF_INPUT) {
+			throw new IllegalArgumentException("replay is truncated");
+		}
+		this.finalTick = buffer.getLong(footer);
+		if(finalTick < 0 || finalTick > ReplayFormat.MAX_TICK_COUNT) {
+			throw new IllegalArgumentException("replay ends on tick " + finalTick + ", but replays can be at most " + ReplayFormat.MAX_TICK_COUNT + " ticks long");
+		}
+		this.finalScore = buffer.getInt(footer + 8);
+		this.finalLevel = buffer.getInt(footer + 12);
+		this.finalBoardHash = buffer.getLong(footer + 16);
+	}
+
+	//Creates a player for a replay file, mapping the file into memory
+	public static ReplayPlayer open(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new ReplayPlayer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	//Plays the replay through a new engine and returns the engine in its final state.
+	//Throws IllegalArgumentException if an action comes after the tick the replay ends on.
+	//Throws IllegalStateException if the replay was recorded with a different version of the rules, since it wouldn't play out the same.
+	public GameEngine play() {
+		if(rulesetVersion != GameEngine.RULESET_VERSION) {
+			throw new IllegalStateException("replay was recorded with ruleset " + rulesetVersion + ", but this is ruleset " + GameEngine.RULESET_VERSION);
+		}
+
+		GameEngine engine = new GameEngine(seed, randomizer, GameEngine.DEFAULT_PREVIEW_COUNT, GameRules.getStandard(rotationSystem), boardConfig);
+		ByteBuffer inputs = buffer.duplicate();
+		inputs.position(ReplayFormat.HEADER_SIZE);
+
+		//Each action is applied at the start of the tick it was recorded on, just as the engine applies actions from its input queue.
+		long tick = 0;
+		byte code;
+		while((code = inputs.get()) != ReplayFormat.END_OF_INPUT) {
+			if(code < 0 || code >= ACTIONS.length) {
+				throw new IllegalArgumentException("unknown action " + code);
+			}
+			long delta = ReplayFormat.getVarLong(inputs);
+			if(delta < 0 || delta > finalTick - tick) {
+				throw new IllegalArgumentException("action is after the end of the replay");
+			}
+			tick += delta;
+			while(engine.getTickCount() < tick) {
+				engine.tick();
+			}
+			engine.handleAction(ACTIONS[code]);
+		}
+		while(engine.getTickCount() < finalTick) {
+			engine.tick();
+		}
+		return engine;
+	}
+
+	//Plays the replay and checks that it ends with the tick count, score, level and board that were recorded
+	public boolean verify() {
+		return matches(play());
+	}
+
+	//Checks whether an engine that played the replay ended with the tick count, score, level and board that were recorded
+	public boolean matches(GameEngine engine) {
+		return engine.getTickCount() == finalTick && engine.getScore() == finalScore && engine.getLevel() == finalLevel
+				&& engine.getBoard().getHash() == finalBoardHash;
+	}
+
+	//Gets the ruleset version the replay was recorded with
+	public int getRulesetVersion() {
+		return rulesetVersion;
+	}
+
+	//Gets the seed of the engine that was recorded
+	public long getSeed() {
+		return seed;
+	}
+
+	//Gets the way the order of the pieces was picked
+	public Randomizer getRandomizer() {
+		return randomizer;
+	}
+
+	//Gets the way the pieces were rotated
+	public RotationSystem getRotationSystem() {
+		return rotationSystem;
+	}
+
+	//Gets the size of the board
+	public BoardConfig getBoardConfig() {
+		return boardConfig;
+	}
+
+	//Gets the tick count when the recording ended
+	public long getFinalTick() {
+		return finalTick;
+	}
+
+	//Gets the score when the recording ended
+	public int getFinalScore() {
+		return finalScore;
+	}
+
+	//Gets the level when the recording ended
+	public int getFinalLevel() {
+		return finalLevel;
+	}
+
+	//Gets the hash of the board when the recording ended
+	public long getFinalBoardHash() {
+		return finalBoardHash;
+	}
+
+	//Plays back every replay file given on the command line and prints whether each one matched, and how fast it played
+	public static void main(String[] args) throws IOException {
+		for(String arg : args) {
+			ReplayPlayer player = open(Paths.get(arg));
+			long start = System.nanoTime();
+			GameEngine engine = player.play();
+			double seconds = (System.nanoTime() - start) / 1.0e9;
+			System.out.printf("%s: %s, score %d, level %d, %d ticks in %.3f s (%.0f ticks/s)%n", arg, player.matches(engine) ? "verified" : "MISMATCH",
+					engine.getScore(), engine.getLevel(), engine.getTickCount(), seconds, engine.getTickCount() / seconds);
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+//Records every action an engine applies so the game can be saved as a replay (see ReplayFormat).
+//The recorder listens to the engine from the moment it is created, so it must be attached before the engine is ticked or given any actions.
+//Actions are encoded as they arrive into a growing byte array, and a replay can be saved at any point, for example whenever a game ends.
+public class ReplayRecorder implements InputListener {
+
+	//The number of bytes the input buffer starts with
+	private static final int INITIAL_CAPACITY = 1024;
+
+	//The largest number of bytes one action takes up: the action and a 10 byte varint
+	private static final int MAX_INPUT_SIZE = 1 + 10;
+
+	//The engine being recorded
+	private final GameEngine engine;
+
+	//The encoded actions
+	private byte[] inputs;
+
+	//The number of bytes of encoded actions
+	private int size;
+
+	//The number of actions recorded
+	private int inputCount;
+
+	//The tick the last action was applied on
+	private long lastTick;
+
+	//Creates a new recorder and starts listening to the engine
+	public ReplayRecorder(GameEngine engine) {
+		if(engine.getTickCount() != 0) {
+			throw new IllegalStateException("the engine has already been ticked");
+		}
+		if(!engine.getRules().isStandard()) {
+			throw new IllegalArgumentException("replays can only be recorded with the standard timings");
+		}
+		this.engine = engine;
+		this.inputs = new byte[INITIAL_CAPACITY];
+		engine.setInputListener(this);
+	}
+
+	@Override
+	public void onInput(long tick, GameAction action) {
+		if(size + MAX_INPUT_SIZE > inputs.length) {
+			this.inputs = Arrays.copyOf(inputs, inputs.length * 2);
+		}
+		inputs[size++] = (byte)action.ordinal();
+		this.size = ReplayFormat.putVarLong(inputs, size, tick - lastTick);
+		this.lastTick = tick;
+		this.inputCount++;
+	}
+
+	//Gets the number of actions recorded
+	public int getInputCount() {
+		return inputCount;
+	}
+
+	//Encodes everything recorded so far as a replay, ending with the current state of the engine.
+	//Games that have had garbage added to their board can't be recorded, since the garbage depends on the opponents and not only on the actions.
+	public byte[] toByteArray() {
+		if(engine.getReceivedLines() > 0) {
+			throw new IllegalStateException("the engine has received garbage, so the game can't be replayed from its actions");
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(ReplayFormat.HEADER_SIZE + size + 1 + ReplayFormat.FOOTER_SIZE);
+		buffer.putInt(ReplayFormat.MAGIC);
+		buffer.put(ReplayFormat.FORMAT_VERSION);
+		buffer.putInt(GameEngine.RULESET_VERSION);
+		buffer.putLong(engine.getSeed());
+		buffer.put((byte)engine.getRandomizer().ordinal());
+		buffer.put((byte)engine.getRules().getRotationSystem().ordinal());
+		buffer.put((byte)engine.getBoard().getColCount());
+		buffer.putShort((short)engine.getBoard().getVisibleRowCount());
+		buffer.put(inputs, 0, size);
+		buffer.put(ReplayFormat.END_OF_INPUT);
+		buffer.putLong(engine.getTickCount());
+		buffer.putInt(engine.getScore());
+		buffer.putInt(engine.getLevel());
+		buffer.putLong(engine.getBoard().getHash());
+		return buffer.array();
+	}
+
+	//Saves everything recorded so far as a replay file
+	public void save(Path path) throws IOException {
+		Files.write(path, toByteArray());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,343 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+//Re-simulates a whole folder or zip archive of replays on every core, and checks that each one ends with the score, level and board it claims.
+//Replays are read one at a time and handed to a work-stealing pool, but only a fixed number can be waiting or in progress at once, and the replays
+//read out of an archive can only hold a fixed number of bytes between them. The reader blocks until one finishes, so memory use stays the same
+//however many replays there are and however large they are.
+//A folder or subfolder that can't be read is reported as UNREADABLE, and the rest of the folder is still verified.
+//A verdict is written to the report for every replay as soon as it is done, and a summary with the throughput is written at the end.
+public class ReplayVerifier {
+
+	//The outcome of verifying one replay
+	public enum Verdict {
+
+		//The replay ended with the claimed score, level and board
+		VERIFIED,
+
+		//The replay played, but ended with a different score, level or board than it claimed
+		MISMATCH,
+
+		//The replay was recorded with a different version of the rules, so it can't be checked
+		WRONG_RULESET,
+
+		//The replay isn't a valid replay file
+		CORRUPT,
+
+		//The replay couldn't be read
+		UNREADABLE
+
+	}
+
+	//The file extension of replays
+	private static final String EXTENSION = ".replay";
+
+	//The largest replay that will be read out of an archive
+	private static final int MAX_REPLAY_SIZE = 16 << 20;
+
+	//The number of replays that can be waiting or in progress for each thread
+	private static final int IN_FLIGHT_PER_THREAD = 4;
+
+	//The largest number of bytes that the replays read out of an archive can hold while they are waiting or in progress.
+	//Replays in a folder are mapped from their files instead of being read into memory, so they don't count towards it.
+	private static final int MAX_BUFFERED_BYTES = 4 * MAX_REPLAY_SIZE;
+
+	//The pool that plays the replays
+	private final ForkJoinPool pool;
+
+	//A permit for every replay that can be waiting or in progress
+	private final Semaphore inFlight;
+
+	//The number of permits
+	private final int maxInFlight;
+
+	//A permit for every byte that replays read out of an archive can hold
+	private final Semaphore bufferedBytes;
+
+	//Where the verdicts are written
+	private final PrintWriter report;
+
+	//The number of replays with each verdict
+	private final LongAdder[] verdictCounts;
+
+	//The number of ticks simulated
+	private final LongAdder ticks;
+
+	//The number of replays that have been found, whether or not they have a verdict yet
+	private final LongAdder submitted;
+
+	//Creates a new verifier
+	//threadCount: The number of replays that are played at once
+	//report: Where the verdicts are written
+	public ReplayVerifier(int threadCount, PrintWriter report) {
+		if(threadCount < 1) {
+			throw new IllegalArgumentException("threadCount must be at least 1");
+		}
+		this.pool = new ForkJoinPool(threadCount);
+		this.maxInFlight = threadCount * IN_FLIGHT_PER_THREAD;
+		this.inFlight = new Semaphore(maxInFlight);
+		this.bufferedBytes = new Semaphore(MAX_BUFFERED_BYTES);
+		this.report = report;
+		this.verdictCounts = new LongAdder[Verdict.values().length];
+		for(int i = 0; i < verdictCounts.length; i++) {
+			verdictCounts[i] = new LongAdder();
+		}
+		this.ticks = new LongAdder();
+		this.submitted = new LongAdder();
+	}
+
+	//Verifies every replay in a folder and its subfolders
+	public void verifyDirectory(Path folder) throws IOException, InterruptedException {
+		try(Stream<Path> paths = Files.walk(folder)) {
+			Iterator<Path> iterator = paths.iterator();
+			while(true) {
+				Path path;
+				try {
+					if(!iterator.hasNext()) {
+						break;
+					}
+					path = iterator.next();
+				} catch(UncheckedIOException e) {
+					//A subfolder couldn't be read. The walk carries on with the next entry, so only the replays inside it are lost.
+					submitted.increment();
+					record(getFailedPath(folder, e.getCause()), Verdict.UNREADABLE, e.getCause().toString());
+					continue;
+				}
+				if(path.toString().endsWith(EXTENSION) && Files.isRegularFile(path)) {
+					submit(folder.relativize(path).toString(), 0, () -> ReplayPlayer.open(path));
+				}
+			}
+		}
+	}
+
+	//Verifies every replay in a zip archive. The archive is read from start to end, and each replay is read into memory just before it is played.
+	public void verifyZip(Path archive) throws IOException, InterruptedException {
+		try(ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(archive)))) {
+			ZipEntry entry;
+			while((entry = zip.getNextEntry()) != null) {
+				if(entry.isDirectory() || !entry.getName().endsWith(EXTENSION)) {
+					continue;
+				}
+
+				//The size of an entry isn't always known until it has been read, so room for the largest replay is set aside first,
+				//and whatever the replay doesn't use is given back once it has been read.
+				bufferedBytes.acquire(MAX_REPLAY_SIZE);
+				byte[] bytes;
+				try {
+					bytes = readEntry(zip);
+				} catch(IOException | RuntimeException e) {
+					bufferedBytes.release(MAX_REPLAY_SIZE);
+					throw e;
+				}
+				if(bytes == null) {
+					bufferedBytes.release(MAX_REPLAY_SIZE);
+					submitted.increment();
+					record(entry.getName(), Verdict.CORRUPT, "larger than " + MAX_REPLAY_SIZE + " bytes");
+					continue;
+				}
+				bufferedBytes.release(MAX_REPLAY_SIZE - bytes.length);
+				submit(entry.getName(), bytes.length, () -> new ReplayPlayer(ByteBuffer.wrap(bytes)));
+			}
+		}
+	}
+
+	//Waits for every replay that has been handed out to be verified
+	public void awaitCompletion() throws InterruptedException {
+		inFlight.acquire(maxInFlight);
+		inFlight.release(maxInFlight);
+	}
+
+	//Stops the pool. The verifier can't be used afterwards.
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	//Gets the number of replays with a verdict
+	public long getCount(Verdict verdict) {
+		return verdictCounts[verdict.ordinal()].sum();
+	}
+
+	//Gets the number of replays that have been verified, whatever their verdict
+	public long getTotalCount() {
+		long total = 0;
+		for(LongAdder count : verdictCounts) {
+			total += count.sum();
+		}
+		return total;
+	}
+
+	//Gets the number of replays that have been found, whether or not they have a verdict yet
+	public long getSubmittedCount() {
+		return submitted.sum();
+	}
+
+	//Gets the number of ticks that have been simulated
+	public long getTickCount() {
+		return ticks.sum();
+	}
+
+	//Hands a replay to the pool, waiting first if too many replays are already waiting or in progress
+	//bytes: The number of buffered bytes the replay holds, which are given back once it has been verified
+	private void submit(String name, int bytes, ReplaySource source) throws InterruptedException {
+		submitted.increment();
+		try {
+			inFlight.acquire();
+		} catch(InterruptedException e) {
+			bufferedBytes.release(bytes);
+			throw e;
+		}
+		try {
+			pool.execute(() -> {
+				try {
+					verify(name, source);
+				} finally {
+					bufferedBytes.release(bytes);
+					inFlight.release();
+				}
+			});
+		} catch(RuntimeException e) {
+			bufferedBytes.release(bytes);
+			inFlight.release();
+			throw e;
+		}
+	}
+
+	//Plays a replay and records its verdict. Every replay gets a verdict: anything that goes wrong while it is opened or played makes it CORRUPT.
+	private void verify(String name, ReplaySource source) {
+		ReplayPlayer player;
+		try {
+			player = source.open();
+		} catch(IOException e) {
+			record(name, Verdict.UNREADABLE, e.toString());
+			return;
+		} catch(IllegalArgumentException e) {
+			record(name, Verdict.CORRUPT, e.getMessage());
+			return;
+		} catch(RuntimeException e) {
+			record(name, Verdict.CORRUPT, e.toString());
+			return;
+		}
+
+		if(player.getRulesetVersion() != GameEngine.RULESET_VERSION) {
+			record(name, Verdict.WRONG_RULESET, "ruleset " + player.getRulesetVersion());
+			return;
+		}
+
+		GameEngine engine;
+		try {
+			engine = player.play();
+		} catch(IllegalArgumentException | BufferUnderflowException e) {
+			record(name, Verdict.CORRUPT, String.valueOf(e.getMessage()));
+			return;
+		} catch(RuntimeException e) {
+			record(name, Verdict.CORRUPT, e.toString());
+			return;
+		}
+		ticks.add(engine.getTickCount());
+
+		if(player.matches(engine)) {
+			record(name, Verdict.VERIFIED, "score " + engine.getScore() + ", level " + engine.getLevel());
+		} else {
+			record(name, Verdict.MISMATCH, String.format("claimed score %d, level %d, board %016x at tick %d; got score %d, level %d, board %016x at tick %d",
+					player.getFinalScore(), player.getFinalLevel(), player.getFinalBoardHash(), player.getFinalTick(),
+					engine.getScore(), engine.getLevel(), engine.getBoard().getHash(), engine.getTickCount()));
+		}
+	}
+
+	//Counts a verdict and writes it to the report
+	private void record(String name, Verdict verdict, String details) {
+		verdictCounts[verdict.ordinal()].increment();
+		synchronized(report) {
+			report.println(name + "\t" + verdict + "\t" + details);
+		}
+	}
+
+	//Gets the name to report for the file or folder that a walk failed on, relative to the folder being verified where possible
+	private static String getFailedPath(Path folder, IOException error) {
+		if(error instanceof FileSystemException && ((FileSystemException)error).getFile() != null) {
+			Path failed = Paths.get(((FileSystemException)error).getFile());
+			return failed.startsWith(folder) ? folder.relativize(failed).toString() : failed.toString();
+		}
+		return folder.toString();
+	}
+
+	//Reads the current entry of a zip archive, or returns null if it is too large
+	private static byte[] readEntry(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] chunk = new byte[8192];
+		int read;
+		while((read = in.read(chunk)) != -1) {
+			if(out.size() + read > MAX_REPLAY_SIZE) {
+				return null;
+			}
+			out.write(chunk, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	//Opens a replay when its turn comes to be played
+	private interface ReplaySource {
+
+		ReplayPlayer open() throws IOException;
+
+	}
+
+	//Verifies a folder or zip archive of replays.
+	//Usage: ReplayVerifier <folder or .zip> [report file] [thread count]
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if(args.length < 1) {
+			System.err.println("Usage: ReplayVerifier <folder or .zip> [report file] [thread count]");
+			System.exit(2);
+		}
+		Path source = Paths.get(args[0]);
+		int threadCount = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		PrintWriter report = (args.length > 1)
+				? new PrintWriter(Files.newBufferedWriter(Paths.get(args[1])))
+				: new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+
+		ReplayVerifier verifier = new ReplayVerifier(threadCount, report);
+		long start = System.nanoTime();
+		if(Files.isDirectory(source)) {
+			verifier.verifyDirectory(source);
+		} else {
+			verifier.verifyZip(source);
+		}
+		verifier.awaitCompletion();
+		double seconds = (System.nanoTime() - start) / 1.0e9;
+		verifier.shutdown();
+		report.flush();
+		if(args.length > 1) {
+			report.close();
+		}
+
+		//Every replay that was found counts, so one that somehow got no verdict still fails the run.
+		long total = verifier.getSubmittedCount();
+		System.err.printf("%d replays in %.2f s on %d threads: %.0f games/s, %.0f ticks/s%n", total, seconds, threadCount, total / seconds,
+				verifier.getTickCount() / seconds);
+		for(Verdict verdict : Verdict.values()) {
+			System.err.printf("  %-13s %d%n", verdict, verifier.getCount(verdict));
+		}
+		System.exit((verifier.getCount(Verdict.VERIFIED) == total) ? 0 : 1);
+	}
+
+}
\ No newline at end of file
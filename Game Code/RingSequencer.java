@@ -0,0 +1,90 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Hands out the slots of a bounded, lock-free ring buffer that any number of threads can write to and one thread reads from.
+//The ring doesn't hold anything itself: each queue keeps its own arrays, indexed by slot, so any kind of value can be queued without allocating.
+//Each slot has a sequence number that tells the senders when it is free and the receiver when it has been written, so no locks are needed.
+//A sender claims a slot, writes its values to it and then publishes it. The receiver peeks at the next slot, reads it and then releases it.
+public class RingSequencer {
+
+	//The sequence number of each slot
+	private final AtomicLongArray sequences;
+
+	//The mask that turns a position into a slot index
+	private final int mask;
+
+	//The position the next value will be written to
+	private final AtomicLong tail;
+
+	//The position the next value will be read from. Only used by the receiving thread.
+	private long head;
+
+	//Creates a new ring
+	//capacity: The number of slots, rounded up to a power of two
+	public RingSequencer(int capacity) {
+		if(capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity) {
+			size <<= 1;
+		}
+
+		this.sequences = new AtomicLongArray(size);
+		this.mask = size - 1;
+		this.tail = new AtomicLong();
+		for(int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	//Claims the next free slot. Can be called from any thread.
+	//Returns the position that was claimed, or -1 if the ring is full. The values should be written to getSlot(position) and then published.
+	public long claim() {
+		while(true) {
+			long position = tail.get();
+			long difference = sequences.get((int)position & mask) - position;
+			if(difference == 0) {
+				//The slot is free, try to claim it.
+				if(tail.compareAndSet(position, position + 1)) {
+					return position;
+				}
+			} else if(difference < 0) {
+				//The receiver hasn't emptied this slot yet, so the ring is full.
+				return -1;
+			}
+		}
+	}
+
+	//Gets the slot index of a position returned by claim()
+	public int getSlot(long position) {
+		return (int)position & mask;
+	}
+
+	//Lets the receiver know that the slot claimed at a position has been written
+	public void publish(long position) {
+		sequences.lazySet((int)position & mask, position + 1);
+	}
+
+	//Gets the slot the receiver reads next, or -1 if nothing has been published to it yet. Must only be called by the receiving thread.
+	public int peek() {
+		int slot = (int)head & mask;
+		if(sequences.get(slot) != head + 1) {
+			return -1;
+		}
+		return slot;
+	}
+
+	//Hands the slot returned by peek() back to the senders for the next time around, and moves on to the next slot.
+	//Must only be called by the receiving thread, once the slot has been read.
+	public void release() {
+		sequences.lazySet((int)head & mask, head + sequences.length());
+		head++;
+	}
+
+	//Gets the number of slots
+	public int getCapacity() {
+		return sequences.length();
+	}
+
+}
\ No newline at end of file
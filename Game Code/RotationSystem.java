@@ -0,0 +1,125 @@
+//The ways that a piece can be rotated when something is in the way.
+//A rotation tries a short list of positions (kicks) for the new rotation in order and takes the first one the piece fits in, or fails if it
+//fits in none of them. Every list is built once, for every type and every pair of rotations, so a rotation is only a loop over a few
+//offsets and a collision test for each. The rotation system is part of the rules of a game, so it is saved in replays along with the seed.
+public enum RotationSystem {
+
+	//The game's original rotation: a single position, shifted just far enough to keep the piece inside the walls and the floor (see Board.kickColumn)
+	LEGACY,
+
+	//The Super Rotation System: up to five offsets, from the standard tables for the I piece and for the J, L, S, T and Z pieces. The O piece never kicks.
+	SRS;
+
+	//The pairs of rotations that the rows of the tables below are for, as rotation before and rotation after
+	private static final int[][] TABLE_ORDER = {{0, 1}, {1, 0}, {1, 2}, {2, 1}, {2, 3}, {3, 2}, {3, 0}, {0, 3}};
+
+	//The SRS offsets for the J, L, S, T and Z pieces, indexed by the rotation before and the rotation after. Each offset is a column and a row,
+	//where a positive row is up, as the tables are usually written.
+	private static final int[][][][] JLSTZ_OFFSETS = createTable(new int[][][] {
+		//0 to R, R to 0, R to 2, 2 to R
+		{{0, 0}, {-1, 0}, {-1, 1}, {0, -2}, {-1, -2}},
+		{{0, 0}, {1, 0}, {1, -1}, {0, 2}, {1, 2}},
+		{{0, 0}, {1, 0}, {1, -1}, {0, 2}, {1, 2}},
+		{{0, 0}, {-1, 0}, {-1, 1}, {0, -2}, {-1, -2}},
+		//2 to L, L to 2, L to 0, 0 to L
+		{{0, 0}, {1, 0}, {1, 1}, {0, -2}, {1, -2}},
+		{{0, 0}, {-1, 0}, {-1, -1}, {0, 2}, {-1, 2}},
+		{{0, 0}, {-1, 0}, {-1, -1}, {0, 2}, {-1, 2}},
+		{{0, 0}, {1, 0}, {1, 1}, {0, -2}, {1, -2}}
+	});
+
+	//The SRS offsets for the I piece, in the same order
+	private static final int[][][][] I_OFFSETS = createTable(new int[][][] {
+		{{0, 0}, {-2, 0}, {1, 0}, {-2, -1}, {1, 2}},
+		{{0, 0}, {2, 0}, {-1, 0}, {2, 1}, {-1, -2}},
+		{{0, 0}, {-1, 0}, {2, 0}, {-1, 2}, {2, -1}},
+		{{0, 0}, {1, 0}, {-2, 0}, {1, -2}, {-2, 1}},
+		{{0, 0}, {2, 0}, {-1, 0}, {2, 1}, {-1, -2}},
+		{{0, 0}, {-2, 0}, {1, 0}, {-2, -1}, {1, 2}},
+		{{0, 0}, {1, 0}, {-2, 0}, {1, -2}, {-2, 1}},
+		{{0, 0}, {-1, 0}, {2, 0}, {-1, 2}, {2, -1}}
+	});
+
+	//The offsets that only try the position the piece is already in
+	private static final int[][][][] NO_OFFSETS = createTable(null);
+
+	//The SRS offsets of each type of piece, indexed by ordinal
+	private static final int[][][][][] OFFSETS = createOffsets();
+
+	//Finds the first kick that a piece fits in after being rotated
+	//x, y: The position of the piece before it is rotated
+	//from: The rotation before
+	//to: The rotation after
+	//Returns the number of the kick, or -1 if the piece can't be rotated.
+	public int findKick(Board board, TileType type, int x, int y, int from, int to) {
+		int kickCount = getKickCount(type, from, to);
+		for(int kick = 0; kick < kickCount; kick++) {
+			if(board.isValidAndEmpty(type, getKickedColumn(board, type, x, from, to, kick), getKickedRow(board, type, y, from, to, kick), to)) {
+				return kick;
+			}
+		}
+		return -1;
+	}
+
+	//Gets the number of kicks that are tried when a piece is rotated
+	public int getKickCount(TileType type, int from, int to) {
+		return (this == LEGACY) ? 1 : getOffsets(type)[from][to].length;
+	}
+
+	//Gets the column a piece is moved to by a kick
+	public int getKickedColumn(Board board, TileType type, int x, int from, int to, int kick) {
+		return (this == LEGACY) ? board.kickColumn(type, x, to) : x + getOffsets(type)[from][to][kick][0];
+	}
+
+	//Gets the row a piece is moved to by a kick
+	public int getKickedRow(Board board, TileType type, int y, int from, int to, int kick) {
+		return (this == LEGACY) ? board.kickRow(type, y, to) : y + getOffsets(type)[from][to][kick][1];
+	}
+
+	//Gets the SRS offsets for a type of piece
+	private static int[][][][] getOffsets(TileType type) {
+		return OFFSETS[type.ordinal()];
+	}
+
+	//Picks the SRS offsets for every type of piece
+	private static int[][][][][] createOffsets() {
+		TileType[] types = TileType.values();
+		int[][][][][] offsets = new int[types.length][][][][];
+		for(TileType type : types) {
+			switch(type) {
+				case TypeI:
+					offsets[type.ordinal()] = I_OFFSETS;
+					break;
+				case TypeO:
+					offsets[type.ordinal()] = NO_OFFSETS;
+					break;
+				default:
+					offsets[type.ordinal()] = JLSTZ_OFFSETS;
+					break;
+			}
+		}
+		return offsets;
+	}
+
+	//Builds a table indexed by the rotation before and the rotation after, turning the rows so that a positive row is down, like on the board.
+	//Pairs of rotations that aren't in the list (or every pair, if there is no list) only try the position the piece is already in.
+	private static int[][][][] createTable(int[][][] offsets) {
+		int[][][][] table = new int[4][4][][];
+		for(int from = 0; from < 4; from++) {
+			for(int to = 0; to < 4; to++) {
+				table[from][to] = new int[][] {{0, 0}};
+			}
+		}
+		if(offsets != null) {
+			for(int i = 0; i < TABLE_ORDER.length; i++) {
+				int[][] kicks = new int[offsets[i].length][];
+				for(int kick = 0; kick < kicks.length; kick++) {
+					kicks[kick] = new int[] {offsets[i][kick][0], -offsets[i][kick][1]};
+				}
+				table[TABLE_ORDER[i][0]][TABLE_ORDER[i][1]] = kicks;
+			}
+		}
+		return table;
+	}
+
+}
\ No newline at end of file
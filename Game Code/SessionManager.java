@@ -0,0 +1,252 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Responsible for hosting many games at once on a single machine.
+//Sessions are split into shards, and each shard is ticked by one task on a shared scheduler every GameEngine.TICK_NANOS nanoseconds.
+//This keeps the number of threads equal to the number of shards no matter how many sessions there are, and a session is only ever ticked by one thread at a time.
+public class SessionManager {
+
+	//The scheduler that ticks the shards
+	private final ScheduledExecutorService scheduler;
+
+	//The live sessions, split into shards by id
+	private final List<Map<Long, GameSession>> shards;
+
+	//The id that will be given to the next session
+	private final AtomicLong nextId;
+
+	//Gives every session created without a seed its own seed. Guarded by itself, since it isn't thread safe.
+	private final SplittableRandom seeds;
+
+	//The total number of session ticks that have been run
+	private final LongAdder ticks;
+
+	//The total number of actions that have been applied
+	private final LongAdder appliedInputs;
+
+	//The number of shard passes that took longer than a tick
+	private final LongAdder overruns;
+
+	//The number of sessions that were stopped because their engine threw an error
+	private final LongAdder failedSessions;
+
+	//The time that the manager was started, in nanoseconds
+	private final long startTime;
+
+	//Creates a new manager with one shard for every available processor
+	public SessionManager() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	//Creates a new manager and starts ticking its shards
+	//shardCount: The number of shards, which is also the number of threads used
+	public SessionManager(int shardCount) {
+		if(shardCount < 1) {
+			throw new IllegalArgumentException("shardCount must be at least 1");
+		}
+
+		this.shards = new ArrayList<Map<Long, GameSession>>(shardCount);
+		this.nextId = new AtomicLong();
+		this.seeds = new SplittableRandom();
+		this.ticks = new LongAdder();
+		this.appliedInputs = new LongAdder();
+		this.overruns = new LongAdder();
+		this.failedSessions = new LongAdder();
+		this.startTime = System.nanoTime();
+
+		this.scheduler = Executors.newScheduledThreadPool(shardCount, runnable -> {
+			Thread thread = new Thread(runnable, "session-shard");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		for(int i = 0; i < shardCount; i++) {
+			Map<Long, GameSession> shard = new ConcurrentHashMap<Long, GameSession>();
+			shards.add(shard);
+			scheduler.scheduleAtFixedRate(() -> tickShard(shard), GameEngine.TICK_NANOS, GameEngine.TICK_NANOS, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	//Creates a new session with a seed of its own, and starts ticking it on the next pass of its shard
+	//randomizer: The way the order of the session's pieces is picked
+	public GameSession createSession(Randomizer randomizer) {
+		long seed;
+		synchronized(seeds) {
+			seed = seeds.nextLong();
+		}
+		return createSession(seed, randomizer);
+	}
+
+	//Creates a new session that picks every piece uniformly, and starts ticking it on the next pass of its shard
+	//seed: The seed of the session's random number generator
+	public GameSession createSession(long seed) {
+		return createSession(seed, Randomizer.UNIFORM);
+	}
+
+	//Creates a new session and starts ticking it on the next pass of its shard
+	//seed: The seed of the session's random number generator
+	//randomizer: The way the order of the session's pieces is picked
+	public GameSession createSession(long seed, Randomizer randomizer) {
+		long id = nextId.getAndIncrement();
+		GameSession session = new GameSession(id, seed, randomizer);
+		getShard(id).put(id, session);
+		return session;
+	}
+
+	//Creates a new session in a versus match, and starts ticking it on the next pass of its shard.
+	//The sessions of a match can be on different shards, the router passes the garbage between them without locking.
+	//seed: The seed of the session's random number generator
+	//randomizer: The way the order of the session's pieces is picked
+	//router: The router that sends the garbage between the sessions of the match
+	//matchId: The id of the match
+	public GameSession createSession(long seed, Randomizer randomizer, AttackRouter router, long matchId) {
+		long id = nextId.getAndIncrement();
+		GameSession session = new GameSession(id, seed, randomizer, router, matchId);
+		getShard(id).put(id, session);
+		return session;
+	}
+
+	//Gets a live session by its id, or null if there is no such session
+	public GameSession getSession(long id) {
+		return getShard(id).get(id);
+	}
+
+	//Stops a session and removes it from the manager
+	public void closeSession(long id) {
+		GameSession session = getShard(id).remove(id);
+		if(session != null) {
+			session.close();
+		}
+	}
+
+	//Stops ticking every session
+	public void shutdown() {
+		scheduler.shutdownNow();
+		for(Map<Long, GameSession> shard : shards) {
+			for(GameSession session : shard.values()) {
+				session.close();
+			}
+			shard.clear();
+		}
+	}
+
+	//Ticks every session in a shard once.
+	//A session that throws is closed and removed, so it can't take the rest of the shard down with it. Errors are caught as well as exceptions:
+	//anything that escaped would make the executor cancel the shard's schedule, and every other session on it would stop being ticked.
+	private void tickShard(Map<Long, GameSession> shard) {
+		long start = System.nanoTime();
+		int count = 0;
+		int applied = 0;
+		for(GameSession session : shard.values()) {
+			if(session.isClosed()) {
+				shard.remove(session.getId());
+				continue;
+			}
+			try {
+				applied += session.tick();
+				count++;
+			} catch(Throwable e) {
+				session.fail(e);
+				shard.remove(session.getId());
+				failedSessions.increment();
+			}
+		}
+		ticks.add(count);
+		appliedInputs.add(applied);
+
+		//Count the passes that could not keep up with the tick rate.
+		if(System.nanoTime() - start > GameEngine.TICK_NANOS) {
+			overruns.increment();
+		}
+	}
+
+	//Gets the shard that a session id belongs to
+	private Map<Long, GameSession> getShard(long id) {
+		return shards.get((int)(id % shards.size()));
+	}
+
+	//Gets the number of live sessions
+	public int getSessionCount() {
+		int count = 0;
+		for(Map<Long, GameSession> shard : shards) {
+			count += shard.size();
+		}
+		return count;
+	}
+
+	//Gets the total number of session ticks that have been run
+	public long getTickCount() {
+		return ticks.sum();
+	}
+
+	//Gets the average number of session ticks run per second since the manager started
+	public double getTicksPerSecond() {
+		double seconds = (System.nanoTime() - startTime) / 1.0e9;
+		return (seconds > 0.0) ? ticks.sum() / seconds : 0.0;
+	}
+
+	//Gets the total number of actions that have been applied
+	public long getAppliedInputs() {
+		return appliedInputs.sum();
+	}
+
+	//Gets the number of shard passes that took longer than a tick
+	public long getOverruns() {
+		return overruns.sum();
+	}
+
+	//Gets the number of sessions that were stopped because their engine threw an error
+	public long getFailedSessions() {
+		return failedSessions.sum();
+	}
+
+	//Runs a load test that hosts a number of sessions playing random inputs and prints the manager's metrics every second.
+	//args: The number of sessions (default 10000), the number of seconds to run for (default 10) and the number of sessions in each versus match
+	//(default 1, which plays every session alone)
+	public static void main(String[] args) throws InterruptedException {
+		int sessionCount = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+		int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+		int matchSize = (args.length > 2) ? Integer.parseInt(args[2]) : 1;
+
+		SessionManager manager = new SessionManager();
+		AttackRouter router = (matchSize > 1) ? new AttackRouter() : null;
+		GameSession[] sessions = new GameSession[sessionCount];
+		for(int i = 0; i < sessionCount; i++) {
+			sessions[i] = (router != null) ? manager.createSession(i, Randomizer.UNIFORM, router, i / matchSize) : manager.createSession(i);
+			sessions[i].offer(GameAction.START);
+		}
+
+		//Send random moves to random sessions, restarting the ones that have finished.
+		GameAction[] moves = { GameAction.MOVE_LEFT, GameAction.MOVE_RIGHT, GameAction.ROTATE_ANTICLOCKWISE, GameAction.ROTATE_CLOCKWISE, GameAction.HARD_DROP, GameAction.HOLD, GameAction.START };
+		Random random = new Random(0);
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		long nextReport = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while(System.nanoTime() < end) {
+			for(int i = 0; i < sessionCount / 10; i++) {
+				sessions[random.nextInt(sessionCount)].offer(moves[random.nextInt(moves.length)]);
+			}
+			if(System.nanoTime() >= nextReport) {
+				nextReport += TimeUnit.SECONDS.toNanos(1);
+				System.out.printf("sessions=%d ticks=%d ticks/s=%.0f inputs=%d overruns=%d failed=%d%n",
+						manager.getSessionCount(), manager.getTickCount(), manager.getTicksPerSecond(),
+						manager.getAppliedInputs(), manager.getOverruns(), manager.getFailedSessions());
+				if(router != null) {
+					System.out.printf("matches=%d garbage sent=%d delivered=%d dropped=%d%n",
+							router.getMatchCount(), router.getSentLines(), router.getDeliveredLines(), router.getDroppedLines());
+				}
+			}
+			Thread.sleep(TimeUnit.NANOSECONDS.toMillis(GameEngine.TICK_NANOS));
+		}
+		manager.shutdown();
+	}
+
+}
\ No newline at end of file
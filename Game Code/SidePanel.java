@@ -1,30 +1,54 @@
 import java.awt.Color;
+import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 
-//Responsible for displaying various information on the game such as the next piece, the score and current level, and controls.
+//Responsible for displaying various information on the game such as the upcoming pieces, the held piece, the score and current level, and controls.
+//The whole panel is drawn into an image, which is only drawn again when something shown on it changes.
+//All of the text is drawn from pre-rendered images, and the numbers from a digit atlas, so drawing the panel again doesn't lay out any text.
 public class SidePanel extends JPanel {
 
-	//The dimensions of each tile on the next piece preview
-	private static final int TILE_SIZE = BoardPanel.TILE_SIZE >> 1;
+	//The width of the panel
+	public static final int PANEL_WIDTH = 200;
+
+	//The smallest height of the panel, which fits everything shown on it
+	public static final int MIN_PANEL_HEIGHT = 490;
 
-	//The width of the shading on each tile on the next piece preview
-	private static final int SHADE_WIDTH = BoardPanel.SHADE_WIDTH >> 1;
+	//The dimensions of each tile on the next piece preview
+	private static final int TILE_SIZE = TileSprites.getTileSize(TileSprites.PREVIEW, BoardPanel.DEFAULT_TILE_SIZE);
 
 	//The number of rows and columns in the preview window
 	private static final int TILE_COUNT = 5;
 
+	//The center x of the hold box
+	private static final int HOLD_CENTER_X = 50;
+
 	//The center x of the next piece preview box
 	private static final int SQUARE_CENTER_X = 130;
 
-	//The center y of the next piece preview box
+	//The center y of the hold and next piece preview boxes
 	private static final int SQUARE_CENTER_Y = 65;
 
 	//The size of the next piece preview box
 	private static final int SQUARE_SIZE = (TILE_SIZE * TILE_COUNT >> 1);
 
+	//The y coordinate of the labels above the boxes
+	private static final int LABEL_Y = 28;
+
+	//The center y of the row of pieces further down the queue
+	private static final int QUEUE_CENTER_Y = 125;
+
+	//The width of each slot in the queue row
+	private static final int QUEUE_SLOT_WIDTH = 40;
+
+	//The height of the queue row
+	private static final int QUEUE_HEIGHT = 34;
+
 	//The number of pixels used on a small insets
 	private static final int SMALL_INSET = 20;
 
@@ -35,7 +59,7 @@ public class SidePanel extends JPanel {
 	private static final int STATS_INSET = 175;
 
 	//The y coordinate of the controls category
-	private static final int CONTROLS_INSET = 300;
+	private static final int CONTROLS_INSET = 260;
 
 	//The number of pixels to offset between each string
 	private static final int TEXT_STRIDE = 25;
@@ -49,93 +73,257 @@ public class SidePanel extends JPanel {
 	//The color to draw the text and preview box in
 	private static final Color DRAW_COLOR = new Color(0, 0, 0);
 
-	private Tetris tetris;
+	//The offsets of every tile of every piece from the center of the box it is previewed in, for the preview and queue sizes.
+	//Indexed by size (0 for PREVIEW, 1 for QUEUE), then by the ordinal of the type, then by the tile.
+	private static final int[][][] TILE_OFFSET_X = new int[2][][];
+	private static final int[][][] TILE_OFFSET_Y = new int[2][][];
+
+	static {
+		int[] variants = { TileSprites.PREVIEW, TileSprites.QUEUE };
+		TileType[] types = TileType.values();
+		for(int size = 0; size < variants.length; size++) {
+			int tileSize = TileSprites.getTileSize(variants[size], BoardPanel.DEFAULT_TILE_SIZE);
+			TILE_OFFSET_X[size] = new int[types.length][];
+			TILE_OFFSET_Y[size] = new int[types.length][];
+			for(TileType type : types) {
+				//The piece is centered on its bounding box, with the empty rows and columns on its top and left skipped.
+				TileShape shape = type.getShape(0);
+				int[] offsetX = new int[shape.getCellCount()];
+				int[] offsetY = new int[shape.getCellCount()];
+				for(int cell = 0; cell < offsetX.length; cell++) {
+					offsetX[cell] = -(type.getCols() * tileSize / 2) + (shape.getCellX(cell) - shape.getLeftInset()) * tileSize;
+					offsetY[cell] = -(type.getRows() * tileSize / 2) + (shape.getCellY(cell) - shape.getTopInset()) * tileSize;
+				}
+				TILE_OFFSET_X[size][type.ordinal()] = offsetX;
+				TILE_OFFSET_Y[size][type.ordinal()] = offsetY;
+			}
+		}
+	}
+
+	//The snapshot that the next paint draws, given by the GamePanel at the start of every paint, or null before the first one.
+	private FrameSnapshot paintedFrame;
+
+	//The pre-rendered preview tiles
+	private TileSprites sprites;
+
+	//The pre-rendered labels
+	private final TextImage statsLabel, scoreLabel, levelLabel, controlsLabel, holdLabel, nextLabel;
+
+	//The pre-rendered lines of the controls category
+	private final TextImage[] controlLabels;
+
+	//The pre-rendered digits of the score and level
+	private final DigitAtlas digits;
+
+	//The whole panel, drawn once and reused until something shown on it changes
+	private BufferedImage panelImage;
+
+	//What the panel image shows
+	private final ShownState imageState;
+
+	//What the panel showed when the last repaint was requested
+	private final ShownState repaintState;
+
+	//Records how long painting takes, or null to not record
+	private GameMetrics metrics;
+
+	//The height of the panel
+	private final int panelHeight;
 
 	//Creates a new SidePanel and sets its display properties
-	public SidePanel(Tetris tetris) {
-		this.tetris = tetris;
+	public SidePanel() {
+		this(MIN_PANEL_HEIGHT);
+	}
 
-		setPreferredSize(new Dimension(200, BoardPanel.PANEL_HEIGHT));
+	//Creates a new SidePanel as tall as the board panel next to it (but never shorter than everything on it) and sets its display properties
+	public SidePanel(int boardHeight) {
+		this.panelHeight = Math.max(boardHeight, MIN_PANEL_HEIGHT);
+		this.sprites = new TileSprites(BoardPanel.DEFAULT_TILE_SIZE);
+		this.imageState = new ShownState();
+		this.repaintState = new ShownState();
+
+		this.statsLabel = new TextImage("Stats", LARGE_FONT, DRAW_COLOR);
+		this.scoreLabel = new TextImage("Score: ", SMALL_FONT, DRAW_COLOR);
+		this.levelLabel = new TextImage("Level: ", SMALL_FONT, DRAW_COLOR);
+		this.controlsLabel = new TextImage("Controls", LARGE_FONT, DRAW_COLOR);
+		this.holdLabel = new TextImage("Hold:", LARGE_FONT, DRAW_COLOR);
+		this.nextLabel = new TextImage("Next:", LARGE_FONT, DRAW_COLOR);
+		this.controlLabels = new TextImage[] {
+			new TextImage("A - Left", SMALL_FONT, DRAW_COLOR),
+			new TextImage("D - Right", SMALL_FONT, DRAW_COLOR),
+			new TextImage("Q - Rotate Anticlockwise", SMALL_FONT, DRAW_COLOR),
+			new TextImage("E - Rotate Clockwise", SMALL_FONT, DRAW_COLOR),
+			new TextImage("S - Fast Forward", SMALL_FONT, DRAW_COLOR),
+			new TextImage("W - Hard Drop", SMALL_FONT, DRAW_COLOR),
+			new TextImage("C - Hold", SMALL_FONT, DRAW_COLOR),
+			new TextImage("P - Pause", SMALL_FONT, DRAW_COLOR)
+		};
+		this.digits = new DigitAtlas(SMALL_FONT, DRAW_COLOR);
+
+		setPreferredSize(new Dimension(PANEL_WIDTH, panelHeight));
 		setBackground(Color.LIGHT_GRAY);
 	}
 
+	//Asks Swing to repaint the panel, but only if something shown on it changed since the last call.
+	//frame: The snapshot that is about to be published. It is read before it is handed to the renderer, so it is never shared with the EDT.
+	public void repaintIfChanged(FrameSnapshot frame) {
+		if(repaintState.update(frame)) {
+			repaint();
+		}
+	}
+
+	//Gets the height of the panel
+	public int getPanelHeight() {
+		return panelHeight;
+	}
+
+	//Sets the metrics that record how long painting takes, or null to not record
+	public void setMetrics(GameMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	//Sets the snapshot that the next paint draws. The GamePanel calls this at the start of every paint, so the board and the side panel draw the same one.
+	public void setPaintedFrame(FrameSnapshot frame) {
+		this.paintedFrame = frame;
+	}
+
+	//Repaints are requested on the GamePanel the panel is in, so a repaint of the board and one of the side panel for the same snapshot are painted together.
+	@Override
+	public void repaint(long tm, int x, int y, int width, int height) {
+		Container parent = getParent();
+		if(parent instanceof GamePanel) {
+			parent.repaint(tm, getX() + x, getY() + y, width, height);
+		} else {
+			super.repaint(tm, x, y, width, height);
+		}
+	}
+
 	@Override
 	public void paintComponent(Graphics g) {
+		long start = (metrics != null) ? System.nanoTime() : 0L;
 		super.paintComponent(g);
+		if(paintedFrame == null) {
+			return;
+		}
+		render(g, paintedFrame);
+		if(metrics != null) {
+			metrics.getPaintTimes().record(System.nanoTime() - start);
+		}
+	}
 
-		//Set the color for drawing.
-		g.setColor(DRAW_COLOR);
-
-		//Stores the current y coordinate of the string to re-order, add, or remove new strings
-		int offset;
-
-		//Draw the "Stats" category
-		g.setFont(LARGE_FONT);
-		g.drawString("Stats", SMALL_INSET, offset = STATS_INSET);
-		g.setFont(SMALL_FONT);
-		g.drawString("Score: " + tetris.getScore(), LARGE_INSET, offset += TEXT_STRIDE);
-
-		//Draw the "Controls" category
-		g.setFont(LARGE_FONT);
-		g.drawString("Controls", SMALL_INSET, offset = CONTROLS_INSET);
-		g.setFont(SMALL_FONT);
-		g.drawString("A - Left", LARGE_INSET, offset += TEXT_STRIDE);
-		g.drawString("D - Right", LARGE_INSET, offset += TEXT_STRIDE);
-		g.drawString("Q - Rotate Anticlockwise", LARGE_INSET, offset += TEXT_STRIDE);
-		g.drawString("E - Rotate Clockwise", LARGE_INSET, offset += TEXT_STRIDE);
-		g.drawString("S - Fast Forward", LARGE_INSET, offset += TEXT_STRIDE);
-		g.drawString("P - Pause", LARGE_INSET, offset += TEXT_STRIDE);
-
-
-//		//Draw the next piece preview box
-		g.setFont(LARGE_FONT);
-		g.drawString("Next Piece:", SMALL_INSET, 70);
-		g.drawRect(SQUARE_CENTER_X - SQUARE_SIZE, SQUARE_CENTER_Y - SQUARE_SIZE, SQUARE_SIZE * 2, SQUARE_SIZE * 2);
-
-//		//Draw a preview of the next piece that will be spawned
-		TileType type = tetris.getNextPieceType();
-		if(!tetris.isGameOver() && type != null) {
-			//Get the size properties of the current piece
-			int cols = type.getCols();
-			int rows = type.getRows();
-			int dimension = type.getDimension();
-
-			//Calculate the top left corner (origin) of the piece
-			int startX = (SQUARE_CENTER_X - (cols * TILE_SIZE / 2));
-			int startY = (SQUARE_CENTER_Y - (rows * TILE_SIZE / 2));
-
-			//Get the insets for the preview
-			int top = type.getTopInset(0);
-			int left = type.getLeftInset(0);
-
-			//Loop through the piece and draw its tiles into the preview screen
-			for(int row = 0; row < dimension; row++) {
-				for(int col = 0; col < dimension; col++) {
-					if(type.isTile(col, row, 0)) {
-						drawTile(type, startX + ((col - left) * TILE_SIZE), startY + ((row - top) * TILE_SIZE), g);
-					}
-				}
+	//Draws the side panel onto the given graphics.
+	//This is used by paintComponent, and by the GameCanvas when the game is rendered actively.
+	//frame: The snapshot to draw, which is the one the board is drawn from as well.
+	public void render(Graphics g, FrameSnapshot frame) {
+		if(panelImage == null) {
+			GraphicsConfiguration config = getGraphicsConfiguration();
+			if(config != null) {
+				this.panelImage = config.createCompatibleImage(PANEL_WIDTH, panelHeight, Transparency.OPAQUE);
+			} else {
+				this.panelImage = new BufferedImage(PANEL_WIDTH, panelHeight, BufferedImage.TYPE_INT_RGB);
 			}
+			imageState.update(frame);
+			paintPanel(frame);
+		} else if(imageState.update(frame)) {
+			paintPanel(frame);
 		}
+		g.drawImage(panelImage, 0, 0, null);
 	}
 
-	//Draws a tile onto the preview window
-	private void drawTile(TileType type, int x, int y, Graphics g) {
-		//Fill the entire tile with the base color
-		g.setColor(type.getBaseColor());
-		g.fillRect(x, y, TILE_SIZE, TILE_SIZE);
-
-		//Fill the bottom and right edges of the tile with the dark shading color
-		g.setColor(type.getDarkColor());
-		g.fillRect(x, y + TILE_SIZE - SHADE_WIDTH, TILE_SIZE, SHADE_WIDTH);
-		g.fillRect(x + TILE_SIZE - SHADE_WIDTH, y, SHADE_WIDTH, TILE_SIZE);
-
-		//Fill the top and left edges with the light shading
-		g.setColor(type.getLightColor());
-		for(int i = 0; i < SHADE_WIDTH; i++) {
-			g.drawLine(x, y + i, x + TILE_SIZE - i - 1, y + i);
-			g.drawLine(x + i, y, x + i, y + TILE_SIZE - i - 1);
+	//Draws everything on the panel into the panel image
+	private void paintPanel(FrameSnapshot frame) {
+		Graphics g = panelImage.getGraphics();
+		try {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, PANEL_WIDTH, panelHeight);
+
+			//Set the color for drawing.
+			g.setColor(DRAW_COLOR);
+
+			//Stores the current y coordinate of the string to re-order, add, or remove new strings
+			int offset;
+
+			//Draw the "Stats" category
+			statsLabel.draw(g, SMALL_INSET, offset = STATS_INSET);
+			scoreLabel.draw(g, LARGE_INSET, offset += TEXT_STRIDE);
+			digits.drawNumber(g, frame.getScore(), LARGE_INSET + scoreLabel.getWidth(), offset);
+			levelLabel.draw(g, LARGE_INSET, offset += TEXT_STRIDE);
+			digits.drawNumber(g, frame.getLevel(), LARGE_INSET + levelLabel.getWidth(), offset);
+
+			//Draw the "Controls" category
+			controlsLabel.draw(g, SMALL_INSET, offset = CONTROLS_INSET);
+			for(TextImage label : controlLabels) {
+				label.draw(g, LARGE_INSET, offset += TEXT_STRIDE);
+			}
+
+			//Draw the hold box, the next piece preview box, and the row for the rest of the queue
+			holdLabel.draw(g, HOLD_CENTER_X - SQUARE_SIZE, LABEL_Y);
+			nextLabel.draw(g, SQUARE_CENTER_X - SQUARE_SIZE, LABEL_Y);
+			g.drawRect(HOLD_CENTER_X - SQUARE_SIZE, SQUARE_CENTER_Y - SQUARE_SIZE, SQUARE_SIZE * 2, SQUARE_SIZE * 2);
+			g.drawRect(SQUARE_CENTER_X - SQUARE_SIZE, SQUARE_CENTER_Y - SQUARE_SIZE, SQUARE_SIZE * 2, SQUARE_SIZE * 2);
+			int queueCount = Math.min(frame.getPreviewCount() - 1, (PANEL_WIDTH - SMALL_INSET * 2) / QUEUE_SLOT_WIDTH);
+			if(queueCount > 0) {
+				g.drawRect(SMALL_INSET, QUEUE_CENTER_Y - QUEUE_HEIGHT / 2, queueCount * QUEUE_SLOT_WIDTH, QUEUE_HEIGHT);
+			}
+
+			//The pieces are only shown while a game is being played
+			if(frame.isGameOver() || frame.isNewGame()) {
+				return;
+			}
+
+			//Draw the held piece, the next piece, and the rest of the queue
+			TileType hold = frame.getHoldType();
+			if(hold != null) {
+				drawPiece(hold, 0, HOLD_CENTER_X, SQUARE_CENTER_Y, TileSprites.PREVIEW, g);
+			}
+			drawPiece(frame.getPreviewType(0), 0, SQUARE_CENTER_X, SQUARE_CENTER_Y, TileSprites.PREVIEW, g);
+			for(int i = 0; i < queueCount; i++) {
+				drawPiece(frame.getPreviewType(i + 1), 1, SMALL_INSET + i * QUEUE_SLOT_WIDTH + QUEUE_SLOT_WIDTH / 2, QUEUE_CENTER_Y, TileSprites.QUEUE, g);
+			}
+		} finally {
+			g.dispose();
+		}
+	}
+
+	//Draws a piece centered on a point, using the precomputed tile offsets
+	//size: The index of the offsets to use (0 for PREVIEW, 1 for QUEUE)
+	private void drawPiece(TileType type, int size, int centerX, int centerY, int variant, Graphics g) {
+		int[] offsetX = TILE_OFFSET_X[size][type.ordinal()];
+		int[] offsetY = TILE_OFFSET_Y[size][type.ordinal()];
+		for(int cell = 0; cell < offsetX.length; cell++) {
+			sprites.drawTile(g, type, variant, centerX + offsetX[cell], centerY + offsetY[cell]);
 		}
 	}
 
+	//The values shown on the panel, used to tell when it has to be drawn again.
+	//The upcoming pieces only change when a piece is spawned, so the piece count stands in for the whole queue.
+	private static class ShownState {
+
+		private boolean isShowingPieces;
+
+		private long pieceCount = -1;
+
+		private int score;
+
+		private int level;
+
+		private TileType holdType;
+
+		//Records the values in a snapshot, and returns true if any of them changed
+		private boolean update(FrameSnapshot frame) {
+			boolean isShowing = !frame.isGameOver() && !frame.isNewGame();
+			if(isShowing == isShowingPieces && frame.getPieceCount() == pieceCount && frame.getScore() == score && frame.getLevel() == level
+					&& frame.getHoldType() == holdType) {
+				return false;
+			}
+			this.isShowingPieces = isShowing;
+			this.pieceCount = frame.getPieceCount();
+			this.score = frame.getScore();
+			this.level = frame.getLevel();
+			this.holdType = frame.getHoldType();
+			return true;
+		}
+
+	}
+
 }
\ No newline at end of file
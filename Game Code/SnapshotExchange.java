@@ -0,0 +1,57 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Responsible for handing frame snapshots from the game loop (the single writer) to the renderer (the single reader) without locking.
+//This is a triple buffer: the writer always owns one snapshot, the reader owns another, and the third sits in between.
+//Publishing swaps the writer's snapshot with the one in between, and acquiring swaps the reader's snapshot with it if a newer one is waiting.
+//Neither side ever waits for the other, and no snapshots are created after the exchange is built.
+public class SnapshotExchange {
+
+	//Set on the shared index when the snapshot in between hasn't been read yet
+	private static final int FRESH = 4;
+
+	//The mask that gets the snapshot index out of the shared index
+	private static final int INDEX = 3;
+
+	//The three snapshots
+	private final FrameSnapshot[] snapshots;
+
+	//The index of the snapshot in between the writer and the reader, plus the FRESH flag
+	private final AtomicInteger middle;
+
+	//The index of the snapshot owned by the writer
+	private int back;
+
+	//The index of the snapshot owned by the reader
+	private int front;
+
+	//Creates a new exchange, filling every snapshot with the current state of the engine
+	public SnapshotExchange(GameEngine engine) {
+		this.snapshots = new FrameSnapshot[3];
+		for(int i = 0; i < snapshots.length; i++) {
+			snapshots[i] = new FrameSnapshot();
+			snapshots[i].copyFrom(engine);
+		}
+		this.back = 0;
+		this.middle = new AtomicInteger(1);
+		this.front = 2;
+	}
+
+	//Gets the snapshot that the writer should fill next. Must only be called by the writer.
+	public FrameSnapshot getBackBuffer() {
+		return snapshots[back];
+	}
+
+	//Publishes the snapshot the writer just filled, and takes back whichever snapshot was in between. Must only be called by the writer.
+	public void publish() {
+		this.back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+
+	//Gets the newest published snapshot. The snapshot stays valid until the next call. Must only be called by the reader.
+	public FrameSnapshot acquire() {
+		if((middle.get() & FRESH) != 0) {
+			this.front = middle.getAndSet(front) & INDEX;
+		}
+		return snapshots[front];
+	}
+
+}
\ No newline at end of file
@@ -1,67 +1,76 @@
 import java.awt.BorderLayout;
+import java.awt.Toolkit;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import javax.swing.JFrame;
 
-//responsible for handling much of the game logic and reading user input
+//Responsible for the game window, reading user input and running the game loop.
+//The rules of the game are handled by the GameEngine, the window only forwards the player's input to it and displays its state.
 public class Tetris extends JFrame {
-	//The number of milliseconds per fram
-	private static final long FRAME_TIME = 1000L / 50L;
+	//The number of frames that are rendered every second. Can be changed with the tetris.fps system property.
+	private static final int FRAME_RATE = Integer.getInteger("tetris.fps", 60);
 
-	//The number of pieces that exist
-	private static final int TYPE_COUNT = TileType.values().length;
+	//The largest number of ticks that can be run in a row to catch up after the game falls behind
+	private static final int MAX_CATCH_UP_TICKS = 5;
 
-	//The BoardPanel instance
-	private BoardPanel board;
+	//Whether the game loop should draw the frames itself instead of asking Swing to repaint the panels. Enabled with the tetris.activeRendering system property.
+	private static final boolean ACTIVE_RENDERING = Boolean.getBoolean("tetris.activeRendering");
 
-	//The SidePanel instance
-	private SidePanel side;
+	//The folder that a replay of every finished game is saved to, or null to not record. Set with the tetris.replayDir system property.
+	private static final String REPLAY_DIR = System.getProperty("tetris.replayDir");
+
+	//The way the order of the pieces is picked. Set with the tetris.randomizer system property (uniform, bag or history).
+	private static final Randomizer RANDOMIZER = Randomizer.valueOf(System.getProperty("tetris.randomizer", "uniform").toUpperCase());
 
-	//Whether the game is paused or not
-	private boolean isPaused;
+	//The way pieces are rotated. Set with the tetris.rotation system property (legacy, the default, or srs).
+	private static final RotationSystem ROTATION_SYSTEM = RotationSystem.valueOf(System.getProperty("tetris.rotation", "legacy").toUpperCase());
 
-	//Whether the game has been played or not yet.
-	//This is set to true initially and then set to false when the game starts
-	private boolean isNewGame;
+	//The size of the board, as columns x visible rows. Set with the tetris.board system property, for example 40x100 for a wide board.
+	private static final BoardConfig BOARD_CONFIG = BoardConfig.parse(System.getProperty("tetris.board", BoardConfig.STANDARD.toString()));
 
-	//Whether the game is over or not yet
-	private boolean isGameOver;
+	//The number of pixels a tile takes up, or 0 to use the default size shrunk to fit the screen. Set with the tetris.tileSize system property.
+	private static final int TILE_SIZE = Integer.getInteger("tetris.tileSize", 0);
 
-	//The current level the player's on
-	private int level;
+	//The number of pixels of the screen's height left for the window's title bar and the taskbar when tiles are shrunk to fit
+	private static final int SCREEN_MARGIN = 100;
 
-	//The current score
-	private int score;
+	//Whether to measure how long the parts of the game take, and publish the results through JMX. Enabled with the tetris.metrics system property.
+	private static final boolean METRICS = Boolean.getBoolean("tetris.metrics");
 
-	//	The random number generator.
-//	This is used to spit out pieces randomly.
-	private Random random;
+	//Whether the metrics are drawn over the board from the start. Set with the tetris.debugOverlay system property, and toggled in game with F3.
+	private static final boolean DEBUG_OVERLAY = Boolean.getBoolean("tetris.debugOverlay");
 
-	//The clock that handles the update logic
-	private Clock logicTimer;
+	//The BoardPanel instance
+	private BoardPanel board;
+
+	//The SidePanel instance
+	private SidePanel side;
 
-	//The current type of tile
-	private TileType currentType;
+	//The engine that runs the rules of the game
+	private GameEngine engine;
 
-	//The next type of tile
-	private TileType nextType;
+	//Hands snapshots of the game from the game loop to the panels
+	private SnapshotExchange frames;
 
-	//The current column of our tile
-	private int currentCol;
+	//The canvas that frames are drawn to when rendering actively, or null when the panels are repainted by Swing
+	private GameCanvas canvas;
 
-	//The current row of our tile
-	private int currentRow;
+	//Records every action applied to the engine, or null when replays aren't being saved
+	private ReplayRecorder recorder;
 
-	//The current rotation of our tile
-	private int currentRotation;
+	//Measures how long the parts of the game take, or null when metrics are off
+	private GameMetrics metrics;
 
-	//Ensures that a certain amount of time passes after a piece is spawned before it can be dropped
-	private int dropCooldown;
+	//Whether the hard drop key is held down, so holding it doesn't drop piece after piece as the key repeats
+	private boolean isHardDropHeld;
 
-	//The speed of the game
-	private float gameSpeed;
+	//Whether the game was over on the last tick
+	private boolean wasGameOver;
 
 	//Creates a new Tetris instance.
 	//Sets up the window's properties and adds a controller listener
@@ -72,13 +81,37 @@ public class Tetris extends JFrame {
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
 		setResizable(false);
 
-		//Initialize the BoardPanel and SidePanel instances
-		this.board = new BoardPanel(this);
-		this.side = new SidePanel(this);
+		//Initialize the engine, seeded from the computer's clock so that every game is different
+		this.engine = new GameEngine(System.nanoTime(), RANDOMIZER, GameEngine.DEFAULT_PREVIEW_COUNT, GameRules.getStandard(ROTATION_SYSTEM), BOARD_CONFIG);
+		if(REPLAY_DIR != null) {
+			this.recorder = new ReplayRecorder(engine);
+		}
 
-		//Add the BoardPanel and SidePanel instances to the window
-		add(board, BorderLayout.CENTER);
-		add(side, BorderLayout.EAST);
+		//Initialize the BoardPanel and SidePanel instances. They only ever draw from snapshots, never from the engine itself.
+		this.frames = new SnapshotExchange(engine);
+		this.board = new BoardPanel(BOARD_CONFIG, (TILE_SIZE > 0) ? TILE_SIZE : getFittingTileSize(BOARD_CONFIG));
+		this.side = new SidePanel(board.getPanelHeight());
+
+		//Start measuring if metrics are enabled, so they can be read through JMX and drawn over the board.
+		if(METRICS) {
+			this.metrics = new GameMetrics();
+			metrics.attach(engine);
+			if(!metrics.register()) {
+				System.err.println("Could not register the metrics with JMX");
+			}
+			board.setMetrics(metrics);
+			side.setMetrics(metrics);
+			board.setDebugOverlay(DEBUG_OVERLAY);
+		}
+
+		//Add the canvas when rendering actively, otherwise add the BoardPanel and SidePanel instances to the window
+		if(ACTIVE_RENDERING) {
+			this.canvas = new GameCanvas(frames, board, side);
+			canvas.setMetrics(metrics);
+			add(canvas, BorderLayout.CENTER);
+		} else {
+			addPanels();
+		}
 
 		//Adds a custom anonymous KeyListener to the frame
 		addKeyListener(new KeyAdapter() {
@@ -88,60 +121,58 @@ public class Tetris extends JFrame {
 
 				switch(e.getKeyCode()) {
 
-					//Drop - When pressed, the program checks to see that the game is not paused and that there is no drop cooldown, then set the logic timer to run at a speed of 25 cycles per second
+					//Drop
 					case KeyEvent.VK_S:
-						if(!isPaused && dropCooldown == 0) {
-							logicTimer.setCyclesPerSecond(25.0f);
+						sendAction(GameAction.DROP);
+						break;
+
+					//Hard Drop
+					case KeyEvent.VK_W:
+						if(!isHardDropHeld) {
+							isHardDropHeld = true;
+							sendAction(GameAction.HARD_DROP);
 						}
 						break;
 
-					//Move Left - When pressed, the program checks to see that the game is not paused and that the position to the left of the current position is valid. If so, we decrement the current column by 1.
+					//Hold
+					case KeyEvent.VK_C:
+						sendAction(GameAction.HOLD);
+						break;
+
+					//Move Left
 					case KeyEvent.VK_A:
-						if(!isPaused && board.isValidAndEmpty(currentType, currentCol - 1, currentRow, currentRotation)) {
-							currentCol--;
-						}
+						sendAction(GameAction.MOVE_LEFT);
 						break;
 
-					//Move Right - When pressed, the program checks to see that the game is not paused and that the position to the right of the current position is valid. If so, we increment the current column by 1.
+					//Move Right
 					case KeyEvent.VK_D:
-						if(!isPaused && board.isValidAndEmpty(currentType, currentCol + 1, currentRow, currentRotation)) {
-							currentCol++;
-						}
+						sendAction(GameAction.MOVE_RIGHT);
 						break;
 
-					//Rotate Anticlockwise - When pressed, the program checks to see that the game is not pausedand then attempt to rotate the piece anticlockwise
-					// Because of the size and complexity of the rotation code, as well as it's similarity to clockwise rotation, the code for rotating the piece is handled in another method
+					//Rotate Anticlockwise
 					case KeyEvent.VK_Q:
-						if(!isPaused) {
-							rotatePiece((currentRotation == 0) ? 3 : currentRotation - 1);
-						}
+						sendAction(GameAction.ROTATE_ANTICLOCKWISE);
 						break;
 
-					/*
-					 * Rotate Clockwise - When pressed, check to see that the game is not paused and then attempt to rotate the piece clockwise.
-					 * Because of the size and complexity of the rotation code, as well as it's similarity to anticlockwise rotation, the code for rotating the piece is handled in another method.
-					 */
+					//Rotate Clockwise
 					case KeyEvent.VK_E:
-						if(!isPaused) {
-							rotatePiece((currentRotation == 3) ? 0 : currentRotation + 1);
-						}
+						sendAction(GameAction.ROTATE_CLOCKWISE);
 						break;
 
-					/*
-					 * Pause Game - When pressed, check to see that the players are currently playing a game.
-					 * If the players are, toggle the pause variable and update the logic timer to reflect this change, otherwise the game will execute a huge number of updates and essentially cause an instant game over when the players unpause if the players stay paused for more than a minute.
-					 */
+					//Pause Game
 					case KeyEvent.VK_P:
-						if(!isGameOver && !isNewGame) {
-							isPaused = !isPaused;
-							logicTimer.setPaused(isPaused);
-						}
+						sendAction(GameAction.PAUSE);
 						break;
 
-					//Start Game - When pressed, check to see that we're in either a game over or new game state.
+					//Start Game
 					case KeyEvent.VK_ENTER:
-						if(isGameOver || isNewGame) {
-							resetGame();
+						sendAction(GameAction.START);
+						break;
+
+					//Show or hide the debug overlay
+					case KeyEvent.VK_F3:
+						if(metrics != null) {
+							board.setDebugOverlay(!board.isDebugOverlay());
 						}
 						break;
 
@@ -153,10 +184,14 @@ public class Tetris extends JFrame {
 
 				switch(e.getKeyCode()) {
 
-					//Drop - When released, the speed of the logic time is set back to whatever the current game speed is and clear out any cycles that might still be elapsed.
+					//Drop
 					case KeyEvent.VK_S:
-						logicTimer.setCyclesPerSecond(gameSpeed);
-						logicTimer.reset();
+						sendAction(GameAction.DROP_RELEASED);
+						break;
+
+					//Hard Drop
+					case KeyEvent.VK_W:
+						isHardDropHeld = false;
 						break;
 				}
 
@@ -168,212 +203,85 @@ public class Tetris extends JFrame {
 		pack();
 		setLocationRelativeTo(null);
 		setVisible(true);
-	}
-
-	//Starts the game and initializes game loop
-	private void startGame() {
-		//Initialize the random number generator, logic timer, and new game variables
-		this.random = new Random();
-		this.isNewGame = true;
-		this.gameSpeed = 1.0f;
 
-		//Setup the timer to keep the game from running before the user presses enter to start it
-		this.logicTimer = new Clock(gameSpeed);
-		logicTimer.setPaused(true);
-
-		while(true) {
-			//Get the time that the frame started.
-			long start = System.nanoTime();
-
-			//Update the logic timer.
-			logicTimer.update();
-
-			//Update the game if a cycle has elapsed on the timer
-			if(logicTimer.hasElapsedCycle()) {
-				updateGame();
-			}
-
-			//Decrement the drop cool down if necessary.
-			if(dropCooldown > 0) {
-				dropCooldown--;
-			}
-
-			//Display the window to the user.
-			renderGame();
-
-			//Sleep to cap the framerate.
-			long delta = (System.nanoTime() - start) / 1000000L;
-			if(delta < FRAME_TIME) {
-				try {
-					Thread.sleep(FRAME_TIME - delta);
-				} catch(Exception e) {
-					e.printStackTrace();
-				}
-			}
+		//The buffer strategy can only be created once the window is showing. If it can't be created, fall back to repainting the panels.
+		if(canvas != null && !canvas.createStrategy()) {
+			remove(canvas);
+			this.canvas = null;
+			addPanels();
+			pack();
 		}
 	}
 
-	//Updates the game and handles the bulk of it's logic
-	private void updateGame() {
-		//Check to see if the piece's position can move down to the next row
-		if(board.isValidAndEmpty(currentType, currentCol, currentRow + 1, currentRotation)) {
-			//Increment the current row if it's safe to do so.
-			currentRow++;
-		} else {
-			board.addPiece(currentType, currentCol, currentRow, currentRotation);
-
-			/*
-			 * Check to see if adding the new piece resulted in any cleared lines.
-			 * If there are cleared lines, increase the player's score. (Up to 4 lines can be cleared in a single go)
-			 * [1 = 100pts, 2 = 200pts, 3 = 400pts, 4 = 800pts]).
-			 */
-			int cleared = board.checkLines();
-			if(cleared > 0) {
-				score += 50 << cleared;
-			}
-
-			//Increase the speed slightly for the next piece and update the game's timer
-			gameSpeed += 0.035f;
-			logicTimer.setCyclesPerSecond(gameSpeed);
-			logicTimer.reset();
-
-			//Set the drop cooldown (0.5 second buffer)
-			dropCooldown = 25;
-
-			//Update the difficulty level
-			level = (int)(gameSpeed * 1.70f);
-
-			//Spawn a new piece
-			spawnPiece();
-		}
+	//Gets the default tile size, or a smaller one if a board of the given size wouldn't fit on the screen with the default size
+	private static int getFittingTileSize(BoardConfig config) {
+		int fitting = (Toolkit.getDefaultToolkit().getScreenSize().height - SCREEN_MARGIN) / config.getVisibleRowCount();
+		return Math.max(BoardPanel.MIN_TILE_SIZE, Math.min(BoardPanel.DEFAULT_TILE_SIZE, fitting));
 	}
 
-	//Forces the BoardPanel and SidePanel to repaint
-	private void renderGame() {
-		board.repaint();
-		side.repaint();
+	//Sends an action to the engine. It is applied at the start of the next tick, on the game loop's thread.
+	private void sendAction(GameAction action) {
+		engine.getInputQueue().offer(action, System.nanoTime());
 	}
 
-	//Resets the game variables to their default values at the start of a new game
-	private void resetGame() {
-		this.level = 1;
-		this.score = 0;
-		this.gameSpeed = 1.0f;
-		this.nextType = TileType.values()[random.nextInt(TYPE_COUNT)];
-		this.isNewGame = false;
-		this.isGameOver = false;
-		board.clear();
-		logicTimer.reset();
-		logicTimer.setCyclesPerSecond(gameSpeed);
-		spawnPiece();
+	//Adds the BoardPanel and SidePanel instances to the window, inside a GamePanel that paints them both from the same snapshot
+	private void addPanels() {
+		add(new GamePanel(frames, board, side), BorderLayout.CENTER);
 	}
 
-	//Spawns a new piece and resets our piece's variables to their default values
-	private void spawnPiece() {
-		//Check what the last shape used was, and reset our position and rotation to their original settings. Then, choose the next shape to use.
-		this.currentType = nextType;
-		this.currentCol = currentType.getSpawnColumn();
-		this.currentRow = currentType.getSpawnRow();
-		this.currentRotation = 0;
-		this.nextType = TileType.values()[random.nextInt(TYPE_COUNT)];
-
-		//Checks if the spawn point is still valid
-		//If it is invalid, pause the game and show the losing screen
-		if(!board.isValidAndEmpty(currentType, currentCol, currentRow, currentRotation)) {
-			this.isGameOver = true;
-			logicTimer.setPaused(true);
+	//Starts the game and initializes game loop
+	private void startGame() {
+		//Ticks run at the engine's fixed rate and frames at their own rate, both scheduled to the nanosecond.
+		GameLoop loop = new GameLoop(GameEngine.TICK_NANOS, 1000000000L / FRAME_RATE, MAX_CATCH_UP_TICKS, this::tickGame, this::renderGame);
+		if(metrics != null) {
+			metrics.attach(loop);
 		}
+		loop.run();
 	}
 
+	//Runs one tick of the game and publishes a snapshot of the result for the panels to draw
+	private void tickGame() {
+		long start = (metrics != null) ? System.nanoTime() : 0L;
+		engine.tick();
 
-	//Attempts to set the rotation of the current piece to newRotation
-	//newRotation: The rotation of the new piece
-	private void rotatePiece(int newRotation) {
-		//In certain situations, we may need to move pieces when rotating them to prevent them from going outside the board.
-		//To handle this, we save temporary row and column values in case we need to shift the tile accordingly.
-		int newColumn = currentCol;
-		int newRow = currentRow;
-
-		//Get the insets for each of the sides.
-		//These are used to determine how many empty rows or columns there are on a given side.
-		int left = currentType.getLeftInset(newRotation);
-		int right = currentType.getRightInset(newRotation);
-		int top = currentType.getTopInset(newRotation);
-		int bottom = currentType.getBottomInset(newRotation);
-
-		//Move the piece away from the left right edges so that the piece doesn't clip out of the map and automatically become invalid
-		if(currentCol < -left) {
-			newColumn -= currentCol - left;
-		} else if(currentCol + currentType.getDimension() - right >= BoardPanel.COL_COUNT) {
-			newColumn -= (currentCol + currentType.getDimension() - right) - BoardPanel.COL_COUNT + 1;
+		//Save a replay as soon as a game ends.
+		if(engine.isGameOver() && !wasGameOver && recorder != null) {
+			saveReplay();
 		}
+		this.wasGameOver = engine.isGameOver();
 
-		//Move the piece away from the top bottom edges so that the piece doesn't clip out of the map and automatically become invalid
-		if(currentRow < -top) {
-			newRow -= currentRow - top;
-		} else if(currentRow + currentType.getDimension() - bottom >= BoardPanel.ROW_COUNT) {
-			newRow -= (currentRow + currentType.getDimension() - bottom) - BoardPanel.ROW_COUNT + 1;
-		}
+		FrameSnapshot frame = frames.getBackBuffer();
+		frame.copyFrom(engine);
 
-		/*
-		 * Check to see if the new position is acceptable.
-		 * If it is, update the rotation and position of the piece.
-		 */
-		if(board.isValidAndEmpty(currentType, newColumn, newRow, newRotation)) {
-			currentRotation = newRotation;
-			currentRow = newRow;
-			currentCol = newColumn;
+		//When Swing paints the panels, ask for the repaints now, while the snapshot still belongs to the game loop.
+		if(canvas == null) {
+			board.repaintDirty(frame);
+			side.repaintIfChanged(frame);
 		}
-	}
+		frames.publish();
 
-	//Checks to see whether the game is paused
-	public boolean isPaused() {
-		return isPaused;
-	}
-
-	//Checks to see whether the game is over
-	public boolean isGameOver() {
-		return isGameOver;
-	}
-
-	//Checks to see whether the players are on a new game
-	public boolean isNewGame() {
-		return isNewGame;
-	}
-
-	//Gets the current score
-	public int getScore() {
-		return score;
-	}
-
-	//Gets the current level
-	public int getLevel() {
-		return level;
-	}
-
-	//Gets the current type of piece that is used currently
-	public TileType getPieceType() {
-		return currentType;
-	}
-
-	//Gets the next type of piece that is going to be used
-	public TileType getNextPieceType() {
-		return nextType;
-	}
-
-	//Gets the column of the current piece
-	public int getPieceCol() {
-		return currentCol;
+		if(metrics != null) {
+			metrics.getTickTimes().record(System.nanoTime() - start);
+		}
 	}
 
-	//Gets the row of the current piece
-	public int getPieceRow() {
-		return currentRow;
+	//Saves a replay of everything played so far to the replay folder
+	private void saveReplay() {
+		try {
+			Path folder = Paths.get(REPLAY_DIR);
+			Files.createDirectories(folder);
+			recorder.save(folder.resolve("replay-" + Long.toHexString(engine.getSeed()) + "-" + engine.getTickCount() + ".replay"));
+		} catch(IOException e) {
+			System.err.println("Could not save replay: " + e);
+		}
 	}
 
-	//Gets the rotation of the current piece
-	public int getPieceRotation() {
-		return currentRotation;
+	//Draws the frame straight to the screen when rendering actively.
+	//Otherwise there is nothing to do, because the repaints were already requested when the snapshot was published.
+	private void renderGame() {
+		if(canvas != null) {
+			canvas.render();
+		}
 	}
 
 	//Entry-point of the game. Responsible for creating and starting a new game instance
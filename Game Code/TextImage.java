@@ -0,0 +1,64 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+
+//Responsible for drawing a piece of text that never changes from a pre-rendered image.
+//The text is laid out and drawn once when it is created, so drawing it afterwards is a single drawImage call with no font shaping and no allocation.
+public class TextImage {
+
+	//The text, drawn with a transparent background
+	private final BufferedImage image;
+
+	//The offset from the text's origin (the left end of its baseline) to the top left corner of the image
+	private final int offsetX;
+	private final int offsetY;
+
+	//The distance from the text's origin to where the text after it would start
+	private final int width;
+
+	//Creates a new text image
+	public TextImage(String text, Font font, Color color) {
+		BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D scratchGraphics = scratch.createGraphics();
+		try {
+			//The image is made just big enough for the pixels the text covers, which can reach past its advance width.
+			FontMetrics metrics = scratchGraphics.getFontMetrics(font);
+			FontRenderContext context = scratchGraphics.getFontRenderContext();
+			GlyphVector glyphs = font.createGlyphVector(context, text);
+			Rectangle bounds = glyphs.getPixelBounds(context, 0, 0);
+
+			this.width = metrics.stringWidth(text);
+			this.offsetX = bounds.x;
+			this.offsetY = bounds.y;
+			this.image = new BufferedImage(Math.max(1, bounds.width), Math.max(1, bounds.height), BufferedImage.TYPE_INT_ARGB);
+		} finally {
+			scratchGraphics.dispose();
+		}
+
+		Graphics g = image.getGraphics();
+		try {
+			g.setFont(font);
+			g.setColor(color);
+			g.drawString(text, -offsetX, -offsetY);
+		} finally {
+			g.dispose();
+		}
+	}
+
+	//Draws the text with its origin (the left end of its baseline) at the given point, just like drawString
+	public void draw(Graphics g, int x, int y) {
+		g.drawImage(image, x + offsetX, y + offsetY, null);
+	}
+
+	//Gets the distance from the text's origin to where the text after it would start
+	public int getWidth() {
+		return width;
+	}
+
+}
\ No newline at end of file
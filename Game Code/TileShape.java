@@ -0,0 +1,120 @@
+//Describes a single rotation of a piece.
+//Instances are built once when TileType is initialized and never change, so the game never has to rescan the tile arrays while it is running.
+public final class TileShape {
+
+	//The number of empty columns on the left side of the piece.
+	private final int leftInset;
+
+	//The dimension minus the index of the rightmost column that contains a tile.
+	private final int rightInset;
+
+	//The number of empty rows on the top side of the piece.
+	private final int topInset;
+
+	//The dimension minus the index of the bottommost row that contains a tile.
+	private final int bottomInset;
+
+	//The column offset of each tile in the piece, in row-major order.
+	private final int[] cellX;
+
+	//The row offset of each tile in the piece, in row-major order.
+	private final int[] cellY;
+
+	//The mask of the tiles in each row of the piece, relative to the piece's left edge (bit x set means column x contains a tile).
+	private final int[] rowMasks;
+
+	//The row offset of the lowest tile in each column of the piece, or -1 if the column is empty. This is the bottom profile the piece lands on.
+	private final int[] columnBottoms;
+
+	/**
+	 * Creates a new TileShape from one rotation of a piece's tile array.
+	 * dimension: The dimensions of the tiles array.
+	 * tiles: The tiles of the rotation, in row-major order.
+	 */
+	TileShape(int dimension, boolean[] tiles) {
+		int count = 0;
+		for(int i = 0; i < tiles.length; i++) {
+			if(tiles[i]) {
+				count++;
+			}
+		}
+
+		this.cellX = new int[count];
+		this.cellY = new int[count];
+		this.rowMasks = new int[dimension];
+		this.columnBottoms = new int[dimension];
+		for(int x = 0; x < dimension; x++) {
+			columnBottoms[x] = -1;
+		}
+
+		//Record every tile and find the edges of the piece in a single pass.
+		int left = dimension, right = -1, top = dimension, bottom = -1;
+		int cell = 0;
+		for(int y = 0; y < dimension; y++) {
+			for(int x = 0; x < dimension; x++) {
+				if(tiles[y * dimension + x]) {
+					cellX[cell] = x;
+					cellY[cell] = y;
+					cell++;
+					rowMasks[y] |= 1 << x;
+					columnBottoms[x] = y;
+					left = Math.min(left, x);
+					right = Math.max(right, x);
+					top = Math.min(top, y);
+					bottom = Math.max(bottom, y);
+				}
+			}
+		}
+
+		this.leftInset = left;
+		this.rightInset = dimension - right;
+		this.topInset = top;
+		this.bottomInset = dimension - bottom;
+	}
+
+	//Gets the left inset
+	public int getLeftInset() {
+		return leftInset;
+	}
+
+	//Gets the right inset
+	public int getRightInset() {
+		return rightInset;
+	}
+
+	//Gets the top inset
+	public int getTopInset() {
+		return topInset;
+	}
+
+	//Gets the bottom inset
+	public int getBottomInset() {
+		return bottomInset;
+	}
+
+	//Gets the number of tiles in the piece
+	public int getCellCount() {
+		return cellX.length;
+	}
+
+	//Gets the column offset of a tile in the piece
+	public int getCellX(int cell) {
+		return cellX[cell];
+	}
+
+	//Gets the row offset of a tile in the piece
+	public int getCellY(int cell) {
+		return cellY[cell];
+	}
+
+	//Gets the mask of the tiles in a row of the piece, ready to be shifted to the piece's column
+	public int getRowMask(int row) {
+		return rowMasks[row];
+	}
+
+	//Gets the row offset of the lowest tile in a column of the piece, or -1 if the column is empty
+	public int getColumnBottom(int col) {
+		return columnBottoms[col];
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.HashMap;
+import java.util.Map;
+
+//Responsible for drawing tiles from pre-rendered images.
+//Every tile is drawn once per type and variant, and after that each tile on the screen is a single drawImage call.
+//When there is a screen the images are kept in video memory, and are redrawn whenever their contents are lost.
+public class TileSprites {
+
+	//The variant used for tiles on the board
+	public static final int NORMAL = 0;
+
+	//The variant used for the ghost piece
+	public static final int GHOST = 1;
+
+	//The variant used for the next piece preview
+	public static final int PREVIEW = 2;
+
+	//The variant used for the pieces further down the preview queue
+	public static final int QUEUE = 3;
+
+	//The number of variants
+	private static final int VARIANT_COUNT = 4;
+
+	//The alpha value of the ghost piece's colors
+	private static final int GHOST_ALPHA = 20;
+
+	//The piece types, indexed by ordinal
+	private static final TileType[] TYPES = TileType.values();
+
+	//The sprites made for each graphics configuration that tiles have been drawn to, indexed by variant and then by the ordinal of the type.
+	//The board is drawn both to its cached layer and to the screen, so sprites for more than one configuration are kept at once.
+	private final Map<GraphicsConfiguration, Image[][]> spritesByConfig;
+
+	//The sprites of the configuration that tiles were last drawn to. Sprites are created the first time they are drawn.
+	private Image[][] sprites;
+
+	//The graphics configuration that the current sprites are compatible with
+	private GraphicsConfiguration config;
+
+	//The size of a tile on the board
+	private final int tileSize;
+
+	//Creates a new, empty sprite cache for tiles of the given size on the board
+	public TileSprites(int tileSize) {
+		this.spritesByConfig = new HashMap<GraphicsConfiguration, Image[][]>();
+		this.tileSize = tileSize;
+	}
+
+	//Gets the size of a tile in the given variant
+	public int getTileSize(int variant) {
+		return getTileSize(variant, tileSize);
+	}
+
+	//Gets the size of a tile in the given variant, when tiles on the board are the given size
+	public static int getTileSize(int variant, int tileSize) {
+		switch(variant) {
+			case PREVIEW:
+				return tileSize >> 1;
+			case QUEUE:
+				return tileSize / 3;
+			default:
+				return tileSize;
+		}
+	}
+
+	//Gets the width of the shading of a tile in the given variant, which is a sixth of the size of a tile on the board
+	private int getShadeWidth(int variant) {
+		int shade = tileSize / 6;
+		switch(variant) {
+			case PREVIEW:
+				return shade >> 1;
+			case QUEUE:
+				return shade >> 2;
+			default:
+				return shade;
+		}
+	}
+
+	/**
+	 * Draws a tile.
+	 * g: The graphics object.
+	 * type: The type of the tile.
+	 * variant: The variant of the tile.
+	 * x: The x coordinate of the tile's top left corner.
+	 * y: The y coordinate of the tile's top left corner.
+	 */
+	public void drawTile(Graphics g, TileType type, int variant, int x, int y) {
+		//Switch to the sprites made for this configuration, which are only looked up when it changes.
+		GraphicsConfiguration current = ((Graphics2D)g).getDeviceConfiguration();
+		if(current != config || sprites == null) {
+			this.config = current;
+			Image[][] found = spritesByConfig.get(current);
+			if(found == null) {
+				found = new Image[VARIANT_COUNT][TYPES.length];
+				spritesByConfig.put(current, found);
+			}
+			this.sprites = found;
+		}
+
+		Image sprite = getSprite(type, variant);
+		g.drawImage(sprite, x, y, null);
+	}
+
+	//Gets a sprite that is ready to be drawn, creating or redrawing it if needed
+	private Image getSprite(TileType type, int variant) {
+		int index = type.ordinal();
+		Image sprite = sprites[variant][index];
+
+		//Volatile images have to be checked before every use, in case their contents were lost.
+		if(sprite instanceof VolatileImage) {
+			int status = ((VolatileImage)sprite).validate(config);
+			if(status == VolatileImage.IMAGE_INCOMPATIBLE) {
+				flush(variant, index);
+				sprite = null;
+			} else if(status == VolatileImage.IMAGE_RESTORED) {
+				paintSprite(sprite, type, variant);
+			}
+		}
+
+		if(sprite == null) {
+			sprite = createSprite(type, variant);
+			sprites[variant][index] = sprite;
+		}
+		return sprite;
+	}
+
+	//Creates and draws a new sprite
+	private Image createSprite(TileType type, int variant) {
+		int size = getTileSize(variant);
+		int transparency = (variant == GHOST) ? Transparency.TRANSLUCENT : Transparency.OPAQUE;
+
+		Image sprite;
+		if(GraphicsEnvironment.isHeadless() || config == null) {
+			sprite = new BufferedImage(size, size, (variant == GHOST) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		} else {
+			sprite = config.createCompatibleVolatileImage(size, size, transparency);
+		}
+		paintSprite(sprite, type, variant);
+		return sprite;
+	}
+
+	//Draws a tile into a sprite
+	private void paintSprite(Image sprite, TileType type, int variant) {
+		Graphics2D g = (Graphics2D)sprite.getGraphics();
+		try {
+			//Start from a fully transparent image so the ghost's alpha isn't blended with anything.
+			g.setComposite(AlphaComposite.Src);
+			g.setColor(new Color(0, 0, 0, 0));
+			g.fillRect(0, 0, sprite.getWidth(null), sprite.getHeight(null));
+			g.setComposite(AlphaComposite.SrcOver);
+
+			if(variant == GHOST) {
+				Color base = type.getBaseColor();
+				base = new Color(base.getRed(), base.getGreen(), base.getBlue(), GHOST_ALPHA);
+				paintTile(g, base, base.brighter(), base.darker(), 0, 0, getTileSize(variant), getShadeWidth(variant));
+			} else {
+				paintTile(g, type.getBaseColor(), type.getLightColor(), type.getDarkColor(), 0, 0, getTileSize(variant), getShadeWidth(variant));
+			}
+		} finally {
+			g.dispose();
+		}
+	}
+
+	//Throws away a sprite so it is created again the next time it is drawn
+	private void flush(int variant, int index) {
+		Image sprite = sprites[variant][index];
+		if(sprite != null) {
+			sprite.flush();
+			sprites[variant][index] = null;
+		}
+	}
+
+	/**
+	 * Draws: a tile from primitives.
+	 * base: The base color of tile.
+	 * light: The light color of the tile.
+	 * dark: The dark color of the tile.
+	 * x: The x coordinate.
+	 * y: The y coordinate.
+	 * size: The size of the tile.
+	 * shade: The width of the shading.
+	 */
+	private static void paintTile(Graphics g, Color base, Color light, Color dark, int x, int y, int size, int shade) {
+
+		//Fill the entire tile with the base color.
+		g.setColor(base);
+		g.fillRect(x, y, size, size);
+
+		//Fill the bottom and right edges of the tile with the dark shading color.
+		g.setColor(dark);
+		g.fillRect(x, y + size - shade, size, shade);
+		g.fillRect(x + size - shade, y, shade, size);
+
+		//Fill the top and left edges with the light shading
+		g.setColor(light);
+		for(int i = 0; i < shade; i++) {
+			g.drawLine(x, y + i, x + size - i - 1, y + i);
+			g.drawLine(x + i, y, x + i, y + size - i - 1);
+		}
+	}
+
+}
\ No newline at end of file
@@ -180,9 +180,6 @@ public enum TileType {
 	//The dark shading color of the tiles
 	private Color darkColor;
 	
-	//The column the tiles spawns in
-	private int spawnCol;
-	
 	//The row the tiles spawns in
 	private int spawnRow;
 	
@@ -199,6 +196,9 @@ public enum TileType {
 	//Each piece has an array of tiles for each rotation
 	private boolean[][] tiles;
 	
+	//The precomputed shape of each rotation of the piece.
+	private TileShape[] shapes;
+	
 	/**
 	 * Creates a new TileType.
 	 * color: The base color of the tile.
@@ -216,7 +216,12 @@ public enum TileType {
 		this.cols = cols;
 		this.rows = rows;
 		
-		this.spawnCol = 5 - (dimension >> 1);
+		//Build the shape of every rotation once, so the insets never have to be scanned for again.
+		this.shapes = new TileShape[tiles.length];
+		for(int i = 0; i < tiles.length; i++) {
+			shapes[i] = new TileShape(dimension, tiles[i]);
+		}
+		
 		this.spawnRow = getTopInset(0);
 	}
 	
@@ -240,11 +245,6 @@ public enum TileType {
 		return dimension;
 	}
 	
-	// Gets the spawn column
-	public int getSpawnColumn() {
-		return spawnCol;
-	}
-	
 	//Gets the spawn row
 	public int getSpawnRow() {
 		return spawnRow;
@@ -271,20 +271,21 @@ public enum TileType {
 		return tiles[rotation][y * dimension + x];
 	}
 	
+	/**
+	 * Gets the precomputed shape of a rotation.
+	 * rotation: The rotation.
+	 * return: The shape.
+	 */
+	public TileShape getShape(int rotation) {
+		return shapes[rotation];
+	}
+	
 	/**
 	 * rotation: The rotation.
 	 * return: The left inset.
 	 */
 	public int getLeftInset(int rotation) {
-		//Loop through from left to right until we find a tile then return the column
-		for(int x = 0; x < dimension; x++) {
-			for(int y = 0; y < dimension; y++) {
-				if(isTile(x, y, rotation)) {
-					return x;
-				}
-			}
-		}
-		return -1;
+		return shapes[rotation].getLeftInset();
 	}
 	
 	/**
@@ -292,38 +293,14 @@ public enum TileType {
 	 * return: The right inset.
 	 */
 	public int getRightInset(int rotation) {
-		//Loop through from right to left until a tile is found and then return the column
-		for(int x = dimension - 1; x >= 0; x--) {
-			for(int y = 0; y < dimension; y++) {
-				if(isTile(x, y, rotation)) {
-					return dimension - x;
-				}
-			}
-		}
-		return -1;
+		return shapes[rotation].getRightInset();
 	}
 
 	public int getTopInset(int rotation) {
-		//Loop through from top to bottom until a tile is found then return the row.
-		for(int y = 0; y < dimension; y++) {
-			for(int x = 0; x < dimension; x++) {
-				if(isTile(x, y, rotation)) {
-					return y;
-				}
-			}
-		}
-		return -1;
+		return shapes[rotation].getTopInset();
 	}
 	public int getBottomInset(int rotation) {
-		//Loop through from bottom to top until a tile is found then return the row
-		for(int y = dimension - 1; y >= 0; y--) {
-			for(int x = 0; x < dimension; x++) {
-				if(isTile(x, y, rotation)) {
-					return dimension - y;
-				}
-			}
-		}
-		return -1;
+		return shapes[rotation].getBottomInset();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+import java.util.concurrent.atomic.LongAdder;
+
+//Remembers the scores of positions that have already been searched, so a search that reaches the same board again can skip it.
+//Positions are keyed on the hash of the board plus the piece to be placed, the piece after it and the rotation system, since the pieces
+//can reach different places under different rotation systems. The table is a fixed number of entries
+//kept in primitive arrays, split into buckets of two: a new score goes in the first slot if it holds the same position or one from an
+//older search, and otherwise replaces whatever is in the second slot.
+//The table is shared by every search thread without locking. Each entry stores its key XORed with its score, so an entry that one thread
+//read while another was writing it won't match its key and is treated as a miss instead of returning the wrong score.
+public class TranspositionTable {
+
+	//The number of slots in each bucket
+	private static final int BUCKET_SIZE = 2;
+
+	//The keys of the piece types, indexed by ordinal plus one so that a missing piece has a key too
+	private static final long[] PIECE_KEYS = createKeys(0, TileType.values().length + 1);
+
+	//The keys of the rotation systems, indexed by ordinal
+	private static final long[] ROTATION_KEYS = createKeys(PIECE_KEYS.length, RotationSystem.values().length);
+
+	//The key of each entry, XORed with its value
+	private final long[] keys;
+
+	//The value of each entry, which is the bits of its score
+	private final long[] values;
+
+	//The search generation each entry was stored in. Only used to choose which entry to replace.
+	private final int[] generations;
+
+	//The mask that turns a key into the index of the first slot of its bucket
+	private final int mask;
+
+	//The current search generation
+	private volatile int generation;
+
+	//The number of lookups
+	private final LongAdder probes;
+
+	//The number of lookups that found a score
+	private final LongAdder hits;
+
+	//The number of scores stored
+	private final LongAdder stores;
+
+	//The number of scores stored over a score for a different position
+	private final LongAdder overwrites;
+
+	//Creates a new table
+	//entryCount: The number of scores the table can hold, rounded up to a power of two
+	public TranspositionTable(int entryCount) {
+		if(entryCount < BUCKET_SIZE || entryCount > (1 << 30)) {
+			throw new IllegalArgumentException("entryCount must be between " + BUCKET_SIZE + " and 2^30");
+		}
+		int size = Integer.highestOneBit(entryCount);
+		if(size < entryCount) {
+			size <<= 1;
+		}
+
+		this.keys = new long[size];
+		this.values = new long[size];
+		this.generations = new int[size];
+		this.mask = (size - 1) & ~(BUCKET_SIZE - 1);
+		this.probes = new LongAdder();
+		this.hits = new LongAdder();
+		this.stores = new LongAdder();
+		this.overwrites = new LongAdder();
+	}
+
+	//Gets the key of a position
+	//type: The type of the piece to be placed
+	//nextType: The type of the piece after it, or null if it isn't known
+	//rotationSystem: The way the pieces are rotated
+	public static long getKey(Board board, TileType type, TileType nextType, RotationSystem rotationSystem) {
+		return board.getHash() ^ PIECE_KEYS[pieceIndex(type)] ^ Long.rotateLeft(PIECE_KEYS[pieceIndex(nextType)], 17)
+				^ ROTATION_KEYS[rotationSystem.ordinal()];
+	}
+
+	//Starts a new search generation. Scores from older generations are replaced before newer ones.
+	public void nextGeneration() {
+		this.generation = generation + 1;
+	}
+
+	//Looks up the score of a position.
+	//Returns the score, or NaN if the position isn't in the table.
+	public double probe(long key) {
+		probes.increment();
+		int index = (int)key & mask;
+		for(int slot = index; slot < index + BUCKET_SIZE; slot++) {
+			long value = values[slot];
+			if((keys[slot] ^ value) == key) {
+				hits.increment();
+				return Double.longBitsToDouble(value);
+			}
+		}
+		return Double.NaN;
+	}
+
+	//Stores the score of a position
+	public void store(long key, double score) {
+		int index = (int)key & mask;
+		int current = generation;
+
+		//Keep the bucket's first slot for the newest scores, and let the second slot take whatever is left.
+		int slot = index + 1;
+		long first = keys[index] ^ values[index];
+		if(first == key || generations[index] != current) {
+			slot = index;
+		}
+
+		long value = Double.doubleToRawLongBits(score);
+		long old = keys[slot] ^ values[slot];
+		if(old != key && (keys[slot] | values[slot]) != 0) {
+			overwrites.increment();
+		}
+		keys[slot] = key ^ value;
+		values[slot] = value;
+		generations[slot] = current;
+		stores.increment();
+	}
+
+	//Removes every score from the table and resets the statistics
+	public void clear() {
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = 0;
+			values[i] = 0;
+			generations[i] = 0;
+		}
+		this.generation = 0;
+		probes.reset();
+		hits.reset();
+		stores.reset();
+		overwrites.reset();
+	}
+
+	//Gets the number of scores the table can hold
+	public int getCapacity() {
+		return keys.length;
+	}
+
+	//Gets the number of slots that hold a score
+	public int getUsedCount() {
+		int used = 0;
+		for(int i = 0; i < keys.length; i++) {
+			if((keys[i] | values[i]) != 0) {
+				used++;
+			}
+		}
+		return used;
+	}
+
+	//Gets the number of lookups
+	public long getProbeCount() {
+		return probes.sum();
+	}
+
+	//Gets the number of lookups that found a score
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	//Gets the number of scores stored
+	public long getStoreCount() {
+		return stores.sum();
+	}
+
+	//Gets the number of scores stored over a score for a different position
+	public long getOverwriteCount() {
+		return overwrites.sum();
+	}
+
+	//Gets the share of lookups that found a score, from 0 to 1
+	public double getHitRate() {
+		long probeCount = probes.sum();
+		return (probeCount == 0) ? 0.0 : (double)hits.sum() / probeCount;
+	}
+
+	//Gets the index of a piece type in the key table
+	private static int pieceIndex(TileType type) {
+		return (type == null) ? 0 : type.ordinal() + 1;
+	}
+
+	//Creates a fixed set of random keys, so the same position always has the same key
+	//skip: The number of keys to skip first, so different sets of keys don't repeat each other
+	private static long[] createKeys(int skip, int count) {
+		long[] keys = new long[count];
+		long seed = 0x6A09E667F3BCC909L + skip * 0x9E3779B97F4A7C15L;
+		for(int i = 0; i < count; i++) {
+			//SplitMix64
+			seed += 0x9E3779B97F4A7C15L;
+			long z = seed;
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			keys[i] = z ^ (z >>> 31);
+		}
+		return keys;
+	}
+
+}
\ No newline at end of file
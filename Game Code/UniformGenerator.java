@@ -0,0 +1,22 @@
+import java.util.SplittableRandom;
+
+//Picks every piece independently, with the same chance for every type. This is how the game has always picked its pieces.
+public class UniformGenerator implements PieceGenerator {
+
+	//The number of piece types
+	private static final int TYPE_COUNT = TileType.values().length;
+
+	//The random number generator
+	private final SplittableRandom random;
+
+	//Creates a new generator
+	public UniformGenerator(SplittableRandom random) {
+		this.random = random;
+	}
+
+	@Override
+	public int next() {
+		return random.nextInt(TYPE_COUNT);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,365 @@
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+//Builds the operations that the JMH benchmarks measure.
+//JMH only runs benchmarks that are in a package, and code in a package can't see the game's classes, which are all in the default package.
+//So every operation is built here, in the default package, and handed to the benchmarks as an IntSupplier. The benchmarks load this class by name
+//once, when they are set up, and each benchmark method only calls its own supplier, so the call is inlined like any other.
+//Every supplier returns a value that depends on the work it did, which the benchmark returns so JMH can keep the JIT from removing the work.
+public class BenchTargets implements BiFunction<String, String, IntSupplier> {
+
+	//The names of the board states, in the order createStates() makes them
+	public static final String[] STATE_NAMES = { "empty", "half", "nearTop", "garbage" };
+
+	//The piece types, indexed by ordinal
+	private static final TileType[] TYPES = TileType.values();
+
+	//The number of positions the placement search is measured on
+	private static final int POSITION_COUNT = 500;
+
+	//The board states that the board, engine and paint operations run on, indexed like STATE_NAMES
+	private final Board[] states;
+
+	//The positions the placement search is measured on, recorded the first time they are needed
+	private Board[] positionBoards;
+	private TileType[] positionTypes, positionNextTypes;
+
+	//The pools the placement search runs on, by number of threads, so searches made again for every iteration share one pool
+	private final Map<Integer, ForkJoinPool> pools;
+
+	//Creates the board states
+	public BenchTargets() {
+		this.states = createStates();
+		this.pools = new HashMap<Integer, ForkJoinPool>();
+	}
+
+	/**
+	 * Builds an operation.
+	 * operation: The name of the operation, such as "Board.addPiece".
+	 * parameter: The name of the board state for board, engine and paint operations, the randomizer for PieceQueue.next, or the number of threads
+	 * for the placement search.
+	 */
+	@Override
+	public IntSupplier apply(String operation, String parameter) {
+		switch(operation) {
+			case "Board.isValidAndEmpty":
+				return isValidAndEmpty(getState(parameter));
+			case "Board.getDropRow":
+				return getDropRow(getState(parameter));
+			case "Board.copyFrom":
+				return copyFrom(getState(parameter));
+			case "Board.addPiece":
+				return addPiece(getState(parameter));
+			case "Board.checkLines (4 lines)":
+				return checkFourLines(getState(parameter));
+			case "Board.checkLines (no lines)":
+				return checkNoLines(getState(parameter));
+			case "GameEngine.rotatePiece":
+				return rotatePiece(getState(parameter));
+			case "GameEngine.tick (dropping)":
+				return tickDropping(getState(parameter));
+			case "BoardPanel.render":
+				return renderBoard(getState(parameter));
+			case "SidePanel.render":
+				return renderSide(getState(parameter));
+			case "PieceQueue.next":
+				return nextPiece(Randomizer.valueOf(parameter.toUpperCase()));
+			case "TileType insets":
+				return insets();
+			case "PlacementSearch.search":
+				return search(Integer.parseInt(parameter), false);
+			case "PlacementSearch.search (table)":
+				return search(Integer.parseInt(parameter), true);
+			default:
+				throw new IllegalArgumentException("unknown operation " + operation);
+		}
+	}
+
+	//Tests every type, rotation and column, on the rows near the top of the stack.
+	private static IntSupplier isValidAndEmpty(Board state) {
+		return new IntSupplier() {
+			private int index;
+
+			@Override
+			public int getAsInt() {
+				int n = index++;
+				TileType type = TYPES[n % TYPES.length];
+				int rotation = (n >> 3) & 3;
+				int col = ((n >> 5) % (state.getColCount() + 2)) - 1;
+				int row = (n >> 9) % state.getRowCount();
+				return state.isValidAndEmpty(type, col, row, rotation) ? 1 : 0;
+			}
+		};
+	}
+
+	//Finds the landing row of every type, rotation and column, dropped from the spawn row.
+	private static IntSupplier getDropRow(Board state) {
+		return new IntSupplier() {
+			private int index;
+
+			@Override
+			public int getAsInt() {
+				int n = index++;
+				TileType type = TYPES[n % TYPES.length];
+				int rotation = (n >> 3) & 3;
+				int col = (n >> 5) % (state.getColCount() - 2);
+				return state.getDropRow(type, col, type.getSpawnRow(), rotation);
+			}
+		};
+	}
+
+	//Copies the board. This is part of addPiece and checkLines (4 lines), so it is measured on its own to be subtracted from them.
+	private static IntSupplier copyFrom(Board state) {
+		Board scratch = new Board();
+		return () -> {
+			scratch.copyFrom(state);
+			return (int)scratch.getRow(scratch.getRowCount() - 1);
+		};
+	}
+
+	//Places a piece on a copy of the board.
+	private static IntSupplier addPiece(Board state) {
+		Board scratch = new Board();
+		return new IntSupplier() {
+			private int index;
+
+			@Override
+			public int getAsInt() {
+				scratch.copyFrom(state);
+				TileType type = TYPES[index++ % TYPES.length];
+				int row = getLandingRow(scratch, type, scratch.getSpawnColumn(type), 0);
+				if(row >= 0) {
+					scratch.addPiece(type, scratch.getSpawnColumn(type), row, 0);
+				}
+				return (int)scratch.getRow(scratch.getRowCount() - 1);
+			}
+		};
+	}
+
+	//Clears the lines on a copy of the board with its bottom four rows filled in.
+	private static IntSupplier checkFourLines(Board state) {
+		Board filled = new Board();
+		filled.copyFrom(state);
+		for(int row = filled.getRowCount() - 4; row < filled.getRowCount(); row++) {
+			filled.setRow(row, filled.getFullRow(), TileType.TypeI);
+		}
+		Board scratch = new Board();
+		return () -> {
+			scratch.copyFrom(filled);
+			return scratch.checkLines();
+		};
+	}
+
+	//Looks for lines on a board that has none.
+	private static IntSupplier checkNoLines(Board state) {
+		return () -> state.checkLines();
+	}
+
+	//Rotates the current piece back and forth on an engine that is playing on the board.
+	private static IntSupplier rotatePiece(Board state) {
+		GameEngine rotating = createEngine(state);
+		return () -> {
+			rotating.handleAction(GameAction.ROTATE_CLOCKWISE);
+			return rotating.getPieceRotation();
+		};
+	}
+
+	//Ticks an engine that is playing on the board with the drop held down, restarting it whenever the game ends.
+	private static IntSupplier tickDropping(Board state) {
+		GameEngine ticking = createEngine(state);
+		return () -> {
+			if(ticking.isGameOver()) {
+				ticking.handleAction(GameAction.START);
+				ticking.getBoard().copyFrom(state);
+				ticking.handleAction(GameAction.DROP);
+			}
+			ticking.tick();
+			return ticking.getPieceRow();
+		};
+	}
+
+	//Draws the board panel into an image, the way the GameCanvas does.
+	//The graphics are created once, and only their transform is put back before each draw, so creating them isn't counted in the time or the allocations.
+	private static IntSupplier renderBoard(Board state) {
+		FrameSnapshot frame = createFrame(state);
+		BoardPanel board = new BoardPanel();
+		BufferedImage image = new BufferedImage(board.getPanelWidth(), board.getPanelHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = (Graphics2D)image.createGraphics().create(0, 0, image.getWidth(), image.getHeight());
+		AffineTransform origin = g.getTransform();
+		return () -> {
+			g.setTransform(origin);
+			board.render(g, frame);
+			return image.getRGB(image.getWidth() / 2, image.getHeight() / 2);
+		};
+	}
+
+	//Draws the side panel into an image, the way the GameCanvas does, with the graphics created once like the board's.
+	private static IntSupplier renderSide(Board state) {
+		FrameSnapshot frame = createFrame(state);
+		SidePanel side = new SidePanel();
+		BufferedImage image = new BufferedImage(SidePanel.PANEL_WIDTH, side.getPanelHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = (Graphics2D)image.createGraphics().create(0, 0, image.getWidth(), image.getHeight());
+		AffineTransform origin = g.getTransform();
+		return () -> {
+			g.setTransform(origin);
+			side.render(g, frame);
+			return image.getRGB(1, 1);
+		};
+	}
+
+	//Draws pieces from a generator through a preview queue.
+	private static IntSupplier nextPiece(Randomizer randomizer) {
+		PieceQueue pieces = new PieceQueue(randomizer.create(new SplittableRandom(0)), GameEngine.DEFAULT_PREVIEW_COUNT);
+		return () -> pieces.next().ordinal();
+	}
+
+	//Looks up every inset of every type and rotation. The insets don't depend on the board.
+	private static IntSupplier insets() {
+		return new IntSupplier() {
+			private int index;
+
+			@Override
+			public int getAsInt() {
+				int n = index++;
+				TileType type = TYPES[n % TYPES.length];
+				int rotation = (n >> 3) & 3;
+				return type.getLeftInset(rotation) + type.getRightInset(rotation) + type.getTopInset(rotation) + type.getBottomInset(rotation);
+			}
+		};
+	}
+
+	//Searches the recorded positions in turn, one per call, and returns the number of placements that were scored.
+	//Without a table the same positions are searched over and over, which measures the raw speed of the search.
+	//With a table, a new search and table is made for every call to this method, so each pass over the positions is like one game.
+	//threads: The number of threads the search runs on
+	private IntSupplier search(int threads, boolean withTable) {
+		recordPositions();
+		ForkJoinPool pool = pools.computeIfAbsent(threads, ForkJoinPool::new);
+		PlacementSearch search = withTable ? new PlacementSearch(pool) : new PlacementSearch(pool, null);
+		RotationSystem rotationSystem = GameRules.STANDARD.getRotationSystem();
+		return new IntSupplier() {
+			private int index;
+
+			@Override
+			public int getAsInt() {
+				int i = index;
+				index = (i + 1) % positionBoards.length;
+				long before = search.getPlacementsSearched();
+				Board board = positionBoards[i];
+				TileType type = positionTypes[i];
+				search.search(board, type, board.getSpawnColumn(type), type.getSpawnRow(), 0, positionNextTypes[i], rotationSystem);
+				return (int)(search.getPlacementsSearched() - before);
+			}
+		};
+	}
+
+	//Records the positions of a game played by the search on a single thread, so they look like real games.
+	private void recordPositions() {
+		if(positionBoards != null) {
+			return;
+		}
+		Board[] boards = new Board[POSITION_COUNT];
+		TileType[] types = new TileType[POSITION_COUNT];
+		TileType[] nextTypes = new TileType[POSITION_COUNT];
+		GameEngine engine = new GameEngine(new Random(0).nextLong());
+		BotPlayer bot = new BotPlayer(new PlacementSearch(pools.computeIfAbsent(1, ForkJoinPool::new)));
+		long lastPiece = -1;
+		int recorded = 0;
+		while(recorded < POSITION_COUNT) {
+			if(engine.getPieceCount() != lastPiece && !engine.isGameOver() && !engine.isNewGame()) {
+				lastPiece = engine.getPieceCount();
+				boards[recorded] = new Board();
+				boards[recorded].copyFrom(engine.getBoard());
+				types[recorded] = engine.getPieceType();
+				nextTypes[recorded] = engine.getNextPieceType();
+				recorded++;
+			}
+			GameAction action = bot.nextAction(engine);
+			if(action != null) {
+				engine.handleAction(action);
+			}
+			engine.tick();
+		}
+		this.positionBoards = boards;
+		this.positionTypes = types;
+		this.positionNextTypes = nextTypes;
+	}
+
+	//Gets a board state by name
+	private Board getState(String name) {
+		for(int i = 0; i < STATE_NAMES.length; i++) {
+			if(STATE_NAMES[i].equals(name)) {
+				return states[i];
+			}
+		}
+		throw new IllegalArgumentException("unknown board state " + name);
+	}
+
+	//Creates the board states that the benchmarks run on
+	private static Board[] createStates() {
+		Random random = new Random(0);
+		Board[] states = new Board[STATE_NAMES.length];
+
+		//An empty board
+		states[0] = new Board();
+
+		//A board filled to half its height, with a few gaps in every row so no line is full.
+		states[1] = new Board();
+		fillRandom(states[1], states[1].getRowCount() / 2, random);
+
+		//A board filled up to just below the spawn rows.
+		states[2] = new Board();
+		fillRandom(states[2], states[2].getVisibleRowCount() - 4, random);
+
+		//A board with twelve rows of garbage, each with a single hole.
+		states[3] = new Board();
+		for(int row = states[3].getRowCount() - 12; row < states[3].getRowCount(); row++) {
+			states[3].setRow(row, states[3].getFullRow() & ~(1L << random.nextInt(states[3].getColCount())), TileType.TypeZ);
+		}
+		return states;
+	}
+
+	//Fills the bottom rows of a board with random tiles, making sure every row has at least one gap
+	private static void fillRandom(Board board, int height, Random random) {
+		for(int row = board.getRowCount() - height; row < board.getRowCount(); row++) {
+			long mask = (random.nextLong() | random.nextLong()) & board.getFullRow();
+			if(mask == board.getFullRow()) {
+				mask &= ~(1L << random.nextInt(board.getColCount()));
+			}
+			board.setRow(row, mask, TYPES[random.nextInt(TYPES.length)]);
+		}
+	}
+
+	//Creates an engine that has started a game on a copy of the given board
+	private static GameEngine createEngine(Board state) {
+		GameEngine engine = new GameEngine(0);
+		engine.handleAction(GameAction.START);
+		engine.getBoard().copyFrom(state);
+		engine.handleAction(GameAction.DROP);
+		return engine;
+	}
+
+	//Takes a snapshot of an engine that is playing on the given board, to be drawn by the panels
+	private static FrameSnapshot createFrame(Board state) {
+		SnapshotExchange frames = new SnapshotExchange(createEngine(state));
+		return frames.acquire();
+	}
+
+	//Finds the lowest row a piece can fall to from the top of the board, or -1 if it doesn't fit at the top
+	private static int getLandingRow(Board board, TileType type, int col, int rotation) {
+		int row = type.getSpawnRow();
+		if(!board.isValidAndEmpty(type, col, row, rotation)) {
+			return -1;
+		}
+		return board.getDropRow(type, col, row, rotation);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Measures the board operations that every tick and every search goes through, on each of the board states.
+//copyFrom is part of addPiece and checkLinesFour, so it is measured on its own to be subtracted from them.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmarks {
+
+	//The board the operations run on: empty, filled to half its height, filled to just below the spawn rows, or twelve rows of garbage
+	@Param({ "empty", "half", "nearTop", "garbage" })
+	public String state;
+
+	//The operations, built for the board state
+	private IntSupplier isValidAndEmpty, getDropRow, copyFrom, addPiece, checkLinesFour, checkLinesNone;
+
+	@Setup
+	public void setup() {
+		BiFunction<String, String, IntSupplier> targets = Targets.load();
+		this.isValidAndEmpty = targets.apply("Board.isValidAndEmpty", state);
+		this.getDropRow = targets.apply("Board.getDropRow", state);
+		this.copyFrom = targets.apply("Board.copyFrom", state);
+		this.addPiece = targets.apply("Board.addPiece", state);
+		this.checkLinesFour = targets.apply("Board.checkLines (4 lines)", state);
+		this.checkLinesNone = targets.apply("Board.checkLines (no lines)", state);
+	}
+
+	@Benchmark
+	public int isValidAndEmpty() {
+		return isValidAndEmpty.getAsInt();
+	}
+
+	@Benchmark
+	public int getDropRow() {
+		return getDropRow.getAsInt();
+	}
+
+	@Benchmark
+	public int copyFrom() {
+		return copyFrom.getAsInt();
+	}
+
+	@Benchmark
+	public int addPiece() {
+		return addPiece.getAsInt();
+	}
+
+	@Benchmark
+	public int checkLinesFour() {
+		return checkLinesFour.getAsInt();
+	}
+
+	@Benchmark
+	public int checkLinesNone() {
+		return checkLinesNone.getAsInt();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Measures rotating the current piece and running a whole tick, on an engine playing on each of the board states.
+//The tick is run with the drop held down, so pieces keep locking and lines keep clearing, and the game is restarted on the same board when it ends.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmarks {
+
+	//The board the engine starts playing on
+	@Param({ "empty", "half", "nearTop", "garbage" })
+	public String state;
+
+	//The operations, built for the board state
+	private IntSupplier rotatePiece, tick;
+
+	@Setup
+	public void setup() {
+		BiFunction<String, String, IntSupplier> targets = Targets.load();
+		this.rotatePiece = targets.apply("GameEngine.rotatePiece", state);
+		this.tick = targets.apply("GameEngine.tick (dropping)", state);
+	}
+
+	@Benchmark
+	public int rotatePiece() {
+		return rotatePiece.getAsInt();
+	}
+
+	@Benchmark
+	public int tick() {
+		return tick.getAsInt();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Measures drawing the board panel and the side panel into a BufferedImage, the way the GameCanvas draws them, on each of the board states.
+//The graphics are created once when the benchmark is set up and only have their transform put back before each draw, so the time and the
+//allocations (with -prof gc) are those of the panels' render methods alone.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmarks {
+
+	//The board the snapshot that is drawn was taken from
+	@Param({ "empty", "half", "nearTop", "garbage" })
+	public String state;
+
+	//The operations, built for the board state
+	private IntSupplier boardPanel, sidePanel;
+
+	@Setup
+	public void setup() {
+		BiFunction<String, String, IntSupplier> targets = Targets.load();
+		this.boardPanel = targets.apply("BoardPanel.render", state);
+		this.sidePanel = targets.apply("SidePanel.render", state);
+	}
+
+	@Benchmark
+	public int boardPanel() {
+		return boardPanel.getAsInt();
+	}
+
+	@Benchmark
+	public int sidePanel() {
+		return sidePanel.getAsInt();
+	}
+
+}
\ No newline at end of file
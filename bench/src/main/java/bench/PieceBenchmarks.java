@@ -0,0 +1,65 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Measures the piece lookups that don't depend on the board: drawing the next piece from a preview queue, and the inset lookups of the shapes.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceBenchmarks {
+
+	//Looks up every inset of every type and rotation
+	private IntSupplier insets;
+
+	//A preview queue fed by one kind of generator
+	@State(Scope.Thread)
+	public static class Queue {
+
+		//The kind of generator
+		@Param({ "uniform", "bag", "history" })
+		public String randomizer;
+
+		//Draws the next piece
+		private IntSupplier next;
+
+		@Setup
+		public void setup() {
+			this.next = Targets.load().apply("PieceQueue.next", randomizer);
+		}
+
+	}
+
+	@Setup
+	public void setup() {
+		BiFunction<String, String, IntSupplier> targets = Targets.load();
+		this.insets = targets.apply("TileType insets", "");
+	}
+
+	@Benchmark
+	public int pieceQueueNext(Queue queue) {
+		return queue.next.getAsInt();
+	}
+
+	@Benchmark
+	public int tileTypeInsets() {
+		return insets.getAsInt();
+	}
+
+}
\ No newline at end of file
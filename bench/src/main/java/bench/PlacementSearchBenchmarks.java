@@ -0,0 +1,86 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//Measures the bot's placement search on different numbers of threads, over a few hundred positions taken from a game the search played itself.
+//search is run without a transposition table, since the same positions are searched over and over, and also counts the placements it scores
+//so the raw speed is reported as placements per second. searchWithTable searches each position once, in order, with a new table for every
+//measured pass, the way a game would.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementSearchBenchmarks {
+
+	//The number of threads the search runs on
+	@Param({ "1", "2", "4" })
+	public String threads;
+
+	//The number of positions searched in one pass, which is one batch of searchWithTable
+	private static final int POSITION_COUNT = 500;
+
+	//Builds the operations
+	private BiFunction<String, String, IntSupplier> targets;
+
+	//Searches the next position without a table
+	private IntSupplier search;
+
+	//Searches the next position with a table, made again for every iteration
+	private IntSupplier tableSearch;
+
+	//The placements scored by search, reported next to the searches
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Placements {
+
+		//The placements scored in the current iteration
+		public long placements;
+
+	}
+
+	@Setup
+	public void setup() {
+		this.targets = Targets.load();
+		this.search = targets.apply("PlacementSearch.search", threads);
+	}
+
+	@Setup(Level.Iteration)
+	public void createTable() {
+		this.tableSearch = targets.apply("PlacementSearch.search (table)", threads);
+	}
+
+	@Benchmark
+	public int search(Placements counters) {
+		int placements = search.getAsInt();
+		counters.placements += placements;
+		return placements;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3, batchSize = POSITION_COUNT)
+	@Measurement(iterations = 10, batchSize = POSITION_COUNT)
+	public int searchWithTable() {
+		return tableSearch.getAsInt();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package bench;
+
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+
+//Loads the operations that the benchmarks measure.
+//The game's classes are in the default package, which code in a package can't name, so BenchTargets is looked up by name instead.
+final class Targets {
+
+	private Targets() {
+	}
+
+	//Creates a new BenchTargets, which builds an operation from its name and a parameter
+	@SuppressWarnings("unchecked")
+	static BiFunction<String, String, IntSupplier> load() {
+		try {
+			return (BiFunction<String, String, IntSupplier>)Class.forName("BenchTargets").getConstructor().newInstance();
+		} catch(ReflectiveOperationException e) {
+			throw new IllegalStateException("could not create BenchTargets", e);
+		}
+	}
+
+}
\ No newline at end of file